@@ -0,0 +1,65 @@
+package org.example.bench;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.User;
+import org.example.service.BlogManager;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+// Dựng BlogManager với dữ liệu giả lập: size bài viết, size bình luận và một số ít tài khoản.
+// Bình luận dồn vào HOT_POSTS bài đầu tiên (bài viết "nóng"), giữ nguyên cách phân bố
+// để kết quả so sánh được với các lần đo trước.
+// Dùng seed cố định để các lần chạy so sánh được với nhau.
+final class BlogFixture {
+    static final int USERS = 100;
+    static final int HOT_POSTS = 1000;
+
+    private BlogFixture() {}
+
+    static BlogManager create(int size) {
+        return create(size, null);
+    }
+
+    static BlogManager create(int size, String dataFile) {
+        BlogManager manager = dataFile == null ? new BlogManager() : new BlogManager(dataFile);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 1; i <= USERS; i++) {
+            manager.addUser(new User(i, "user" + i, "hash" + i, "Người dùng " + i, now));
+        }
+        for (int i = 1; i <= size; i++) {
+            manager.addPost(new Post(i, "Bài viết số " + i, "Nội dung bài viết số " + i + " " + text(random),
+                    1 + random.nextInt(USERS), now.plusSeconds(i), null));
+        }
+        for (int i = 1; i <= size; i++) {
+            manager.addComment(new Comment(i, 1 + random.nextInt(hotPosts(size)), "khach" + (i % 50),
+                    "Bình luận " + i, now.plusSeconds(size + i)));
+        }
+        return manager;
+    }
+
+    static int hotPosts(int size) {
+        return Math.min(size, HOT_POSTS);
+    }
+
+    // Dãy id ngẫu nhiên trong [1, bound] để các benchmark lần lượt truy vấn
+    static int[] randomIds(int bound, int count, long seed) {
+        Random random = new Random(seed);
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1 + random.nextInt(bound);
+        }
+        return ids;
+    }
+
+    private static String text(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 20 + random.nextInt(40);
+        for (int i = 0; i < words; i++) {
+            sb.append("từ").append(random.nextInt(1000)).append(' ');
+        }
+        return sb.toString();
+    }
+}
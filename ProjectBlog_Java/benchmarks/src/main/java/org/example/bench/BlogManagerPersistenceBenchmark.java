@@ -0,0 +1,64 @@
+package org.example.bench;
+
+import org.example.service.BlogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Ghi/đọc toàn bộ dữ liệu ra file. Mỗi lần gọi mất từ vài ms đến vài giây nên chạy ít iteration.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class BlogManagerPersistenceBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Path saveFile;
+    private Path loadFile;
+    private BlogManager saver;
+    private BlogManager loader;
+
+    @Setup
+    public void setUp() throws IOException {
+        saveFile = Files.createTempFile("blog-bench-save", ".dat");
+        loadFile = Files.createTempFile("blog-bench-load", ".dat");
+        saver = BlogFixture.create(size, saveFile.toString());
+        BlogFixture.create(size, loadFile.toString()).saveToFile();
+        loader = new BlogManager(loadFile.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(saveFile);
+        Files.deleteIfExists(loadFile);
+    }
+
+    @Benchmark
+    public void saveToFile() {
+        saver.saveToFile();
+    }
+
+    @Benchmark
+    public BlogManager loadFromFile() {
+        loader.loadFromFile();
+        return loader;
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.bench;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.service.BlogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Các thao tác chỉ đọc của BlogManager: tra cứu bài viết, bình luận và sinh id tiếp theo
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class BlogManagerReadBenchmark {
+    private static final int IDS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private BlogManager manager;
+    private int[] postIds;
+    private int[] hotPostIds;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        manager = BlogFixture.create(size);
+        postIds = BlogFixture.randomIds(size, IDS, 1);
+        hotPostIds = BlogFixture.randomIds(BlogFixture.hotPosts(size), IDS, 2);
+    }
+
+    private int next(int[] ids) {
+        cursor = (cursor + 1) & (IDS - 1);
+        return ids[cursor];
+    }
+
+    @Benchmark
+    public Optional<Post> getPostById() {
+        return manager.getPostById(next(postIds));
+    }
+
+    @Benchmark
+    public List<Comment> getCommentsByPostId() {
+        return manager.getCommentsByPostId(next(hotPostIds));
+    }
+
+    @Benchmark
+    public int getNextPostId() {
+        return manager.getNextPostId();
+    }
+
+    @Benchmark
+    public int getNextCommentId() {
+        return manager.getNextCommentId();
+    }
+
+    @Benchmark
+    public int getNextUserId() {
+        return manager.getNextUserId();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.bench;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.service.BlogManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Các thao tác ghi của BlogManager. Dữ liệu được dựng lại trước mỗi iteration
+// để số bình luận thêm vào không làm lệch kích thước tập dữ liệu giữa các iteration.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class BlogManagerWriteBenchmark {
+    private static final int IDS = 1024;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private BlogManager manager;
+    private int[] postIds;
+    private Post[] deleteTargets;
+    private List<Comment>[] deleteTargetComments;
+    private int cursor;
+    private int nextCommentId;
+
+    @Setup(Level.Iteration)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        manager = BlogFixture.create(size);
+        postIds = BlogFixture.randomIds(size, IDS, 3);
+        nextCommentId = size + 1;
+
+        deleteTargets = new Post[IDS];
+        deleteTargetComments = new List[IDS];
+        int[] targetIds = BlogFixture.randomIds(size, IDS, 4);
+        for (int i = 0; i < IDS; i++) {
+            deleteTargets[i] = manager.getPostById(targetIds[i]).orElseThrow();
+            deleteTargetComments[i] = manager.getCommentsByPostId(targetIds[i]);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (IDS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public boolean addComment() {
+        Comment comment = new Comment(nextCommentId++, postIds[next()], "bench", "Bình luận benchmark", CREATED_AT);
+        return manager.addComment(comment);
+    }
+
+    // Xóa một bài viết (kèm bình luận) rồi thêm lại để kích thước dữ liệu không đổi;
+    // thời gian đo gồm cả deletePost lẫn addPost/addComment khôi phục
+    @Benchmark
+    public boolean deletePostAndRestore() {
+        int i = next();
+        Post post = deleteTargets[i];
+        boolean deleted = manager.deletePost(post.getId());
+        manager.addPost(post);
+        for (Comment comment : deleteTargetComments[i]) {
+            manager.addComment(comment);
+        }
+        return deleted;
+    }
+}
@@ -20,9 +20,16 @@ CREATE TABLE posts (
   author_id INT NOT NULL
     CONSTRAINT FK_posts_user REFERENCES users(id),
   created_at DATETIME2(3) NOT NULL DEFAULT SYSUTCDATETIME(),
-  updated_at DATETIME2(3) NULL
+  updated_at DATETIME2(3) NULL,
+  -- Số bình luận, được trigger TR_comments_count cập nhật
+  comment_count INT NOT NULL DEFAULT 0,
+  -- Đoạn trích cho màn hình danh sách, đọc cột này không phải đọc cả NVARCHAR(MAX)
+  excerpt AS CAST(LEFT(content, 160) AS NVARCHAR(160)) PERSISTED
 );
 
+-- Phân trang theo khóa (keyset) cho danh sách bài viết
+CREATE INDEX IX_posts_created_at_id ON posts(created_at DESC, id DESC);
+
 -- Bình luận của khách (ẩn danh: lưu tên nhập vào)
 CREATE TABLE comments (
   id INT IDENTITY(1,1) PRIMARY KEY,
@@ -33,3 +40,28 @@ CREATE TABLE comments (
   created_at DATETIME2(3) NOT NULL DEFAULT SYSUTCDATETIME()
 );
 
+-- Giữ posts.comment_count đồng bộ khi thêm/xóa bình luận
+GO
+CREATE TRIGGER TR_comments_count ON comments
+AFTER INSERT, DELETE
+AS
+BEGIN
+  SET NOCOUNT ON;
+  UPDATE p SET comment_count = p.comment_count + d.delta
+  FROM posts p
+  JOIN (
+    SELECT post_id, SUM(delta) AS delta
+    FROM (
+      SELECT post_id, 1 AS delta FROM inserted
+      UNION ALL
+      SELECT post_id, -1 AS delta FROM deleted
+    ) x
+    GROUP BY post_id
+  ) d ON d.post_id = p.id;
+END;
+GO
+
+-- Nâng cấp CSDL đã tạo từ phiên bản schema cũ (chạy một lần, trước khi tạo trigger ở trên):
+-- ALTER TABLE posts ADD comment_count INT NOT NULL DEFAULT 0;
+-- ALTER TABLE posts ADD excerpt AS CAST(LEFT(content, 160) AS NVARCHAR(160)) PERSISTED;
+-- UPDATE p SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) FROM posts p;
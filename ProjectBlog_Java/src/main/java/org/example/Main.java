@@ -1,18 +1,32 @@
 package org.example;
 
+import org.example.config.Database;
+import org.example.dao.DataAccessException;
+import org.example.metrics.SqlMetrics;
 import org.example.model.Comment;
 import org.example.model.Post;
+import org.example.model.PostSummary;
 import org.example.model.User;
 import org.example.service.JdbcBlogService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
 public class Main {
+    private static final int PAGE_SIZE = 10;
+
     public static void main(String[] args) {
-        JdbcBlogService app = new JdbcBlogService();
+        JdbcBlogService app;
+        try {
+            app = JdbcBlogService.create();
+        } catch (DataAccessException e) {
+            System.out.println("Không thể khởi động ứng dụng, lỗi CSDL: " + e.getMessage());
+            Database.shutdown();
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
         User loggedIn = null;
@@ -33,135 +47,183 @@ public class Main {
             System.out.println("8. Đăng nhập");
             System.out.println("9. Đăng xuất");
             System.out.println("10. Tìm kiếm bài viết theo tiêu đề/nội dung");
+            System.out.println("11. Thống kê SQL / pool / cache");
             System.out.println("0. Thoát");
             System.out.print("Chọn: ");
             String choice = scanner.nextLine();
             if (choice == null) choice = "";
 
-            if ("1".equals(choice)) {
-                List<Post> all = app.getAllPosts();
-                if (all.isEmpty()) {
-                    System.out.println("(Trống)");
-                } else {
-                    for (Post p : all) {
-                        System.out.println("ID=" + p.getId() + " | " + p.getTitle());
+            // Lỗi CSDL (hết thời gian, mất kết nối, vi phạm ràng buộc) chỉ hủy thao tác hiện tại, quay lại menu
+            try {
+                if ("1".equals(choice)) {
+                    listPosts(app, scanner);
+                } else if ("2".equals(choice)) {
+                    System.out.print("Nhập postId: ");
+                    String s = scanner.nextLine();
+                    int postId = 0;
+                    try { postId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
+                    Optional<Post> op = app.getPostById(postId);
+                    if (!op.isPresent()) {
+                        System.out.println("Không tìm thấy bài viết");
+                    } else {
+                        Post p = op.get();
+                        System.out.println("\n--- BÀI VIẾT ---");
+                        System.out.println("ID: " + p.getId());
+                        System.out.println("Tiêu đề: " + p.getTitle());
+                        System.out.println("Nội dung:\n" + p.getContent());
+                        System.out.println("\n--- BÌNH LUẬN ---");
+                        List<Comment> cs = p.getComments();
+                        if (cs.isEmpty()) System.out.println("(Chưa có bình luận)");
+                        else {
+                            for (Comment c : cs) {
+                                System.out.println("#" + c.getId() + " | " + c.getAuthorName() + ": " + c.getContent());
+                            }
+                        }
                     }
-                }
-            } else if ("2".equals(choice)) {
-                System.out.print("Nhập postId: ");
-                String s = scanner.nextLine();
-                int postId = 0;
-                try { postId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
-                Optional<Post> op = app.getPostById(postId);
-                if (!op.isPresent()) {
-                    System.out.println("Không tìm thấy bài viết");
-                } else {
-                    Post p = op.get();
-                    System.out.println("\n--- BÀI VIẾT ---");
-                    System.out.println("ID: " + p.getId());
-                    System.out.println("Tiêu đề: " + p.getTitle());
-                    System.out.println("Nội dung:\n" + p.getContent());
-                    System.out.println("\n--- BÌNH LUẬN ---");
-                    List<Comment> cs = p.getComments();
-                    if (cs.isEmpty()) System.out.println("(Chưa có bình luận)");
-                    else {
-                        for (Comment c : cs) {
-                            System.out.println("#" + c.getId() + " | " + c.getAuthorName() + ": " + c.getContent());
+                } else if ("3".equals(choice)) {
+                    if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
+                    System.out.print("Tiêu đề: ");
+                    String title = scanner.nextLine();
+                    System.out.print("Nội dung: ");
+                    String content = scanner.nextLine();
+                    Post post = new Post();
+                    post.setTitle(title);
+                    post.setContent(content);
+                    post.setAuthorId(loggedIn.getId());
+                    post.setCreatedAt(LocalDateTime.now());
+                    app.addPost(post);
+                    System.out.println("Đã thêm bài viết");
+                } else if ("4".equals(choice)) {
+                    if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
+                    System.out.print("Nhập postId cần xóa: ");
+                    String s = scanner.nextLine();
+                    int postId = 0;
+                    try { postId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
+                    boolean ok = app.deletePost(postId);
+                    System.out.println(ok ? "Đã xóa bài viết." : "Không tìm thấy bài viết.");
+                } else if ("5".equals(choice)) {
+                    System.out.print("Nhập postId: ");
+                    String sPost = scanner.nextLine();
+                    int postId = 0;
+                    try { postId = Integer.parseInt(sPost); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
+                    System.out.print("Tên người bình luận: ");
+                    String author = scanner.nextLine();
+                    System.out.print("Nội dung bình luận: ");
+                    String content = scanner.nextLine();
+                    Comment cmt = new Comment();
+                    cmt.setPostId(postId);
+                    cmt.setAuthorName(author);
+                    cmt.setContent(content);
+                    cmt.setCreatedAt(LocalDateTime.now());
+                    boolean ok = app.addComment(cmt);
+                    if (ok) System.out.println("Đã thêm bình luận #" + cmt.getId());
+                } else if ("6".equals(choice)) {
+                    if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
+                    System.out.print("Nhập commentId cần xóa: ");
+                    String s = scanner.nextLine();
+                    int commentId = 0;
+                    try { commentId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
+                    boolean ok = app.deleteComment(commentId);
+                    System.out.println(ok ? "Đã xóa bình luận." : "Không tìm thấy bình luận.");
+                } else if ("7".equals(choice)) {
+                    System.out.print("Username: ");
+                    String username = scanner.nextLine();
+                    if (username == null) username = "";
+                    Optional<User> existed = app.findUserByUsername(username);
+                    if (existed.isPresent()) { System.out.println("Username đã tồn tại."); continue; }
+                    System.out.print("Mật khẩu: ");
+                    String password = scanner.nextLine();
+                    System.out.print("Tên hiển thị: ");
+                    String display = scanner.nextLine();
+                    User u = new User();
+                    u.setUsername(username);
+                    u.setPasswordHash(password);
+                    u.setDisplayName(display);
+                    u.setCreatedAt(LocalDateTime.now());
+                    app.addUser(u);
+                    System.out.println("Đăng ký thành công");
+                } else if ("8".equals(choice)) {
+                    System.out.print("Username: ");
+                    String username = scanner.nextLine();
+                    System.out.print("Mật khẩu: ");
+                    String password = scanner.nextLine();
+                    Optional<User> u = app.authenticateUser(username, password);
+                    if (u.isPresent()) { loggedIn = u.get(); System.out.println("Đăng nhập thành công."); }
+                    else { System.out.println("Sai thông tin đăng nhập."); }
+                } else if ("9".equals(choice)) {
+                    loggedIn = null;
+                    System.out.println("Đã đăng xuất.");
+                } else if ("10".equals(choice)) {
+                    System.out.print("Nhập từ khóa: ");
+                    String keyword = scanner.nextLine();
+                    List<PostSummary> results = keyword.isBlank() ? List.of() : app.searchPostSummaries(keyword);
+                    if (keyword.isBlank()) {
+                        System.out.println("Từ khóa trống. Dùng menu 1 để xem tất cả bài viết.");
+                    } else if (results.isEmpty()) {
+                        System.out.println("Không tìm thấy bài viết phù hợp.");
+                    } else {
+                        System.out.println("Kết quả tìm kiếm:");
+                        for (PostSummary p : results) {
+                            System.out.println("ID=" + p.getId() + " | " + p.getTitle());
+                            System.out.println("    " + p.getExcerpt());
                         }
                     }
-                }
-            } else if ("3".equals(choice)) {
-                if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
-                System.out.print("Tiêu đề: ");
-                String title = scanner.nextLine();
-                System.out.print("Nội dung: ");
-                String content = scanner.nextLine();
-                Post post = new Post();
-                post.setTitle(title);
-                post.setContent(content);
-                post.setAuthorId(loggedIn.getId());
-                post.setCreatedAt(LocalDateTime.now());
-                app.addPost(post);
-                System.out.println("Đã thêm bài viết");
-            } else if ("4".equals(choice)) {
-                if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
-                System.out.print("Nhập postId cần xóa: ");
-                String s = scanner.nextLine();
-                int postId = 0;
-                try { postId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
-                boolean ok = app.deletePost(postId);
-                System.out.println(ok ? "Đã xóa bài viết." : "Không tìm thấy bài viết.");
-            } else if ("5".equals(choice)) {
-                System.out.print("Nhập postId: ");
-                String sPost = scanner.nextLine();
-                int postId = 0;
-                try { postId = Integer.parseInt(sPost); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
-                System.out.print("Tên người bình luận: ");
-                String author = scanner.nextLine();
-                System.out.print("Nội dung bình luận: ");
-                String content = scanner.nextLine();
-                Comment cmt = new Comment();
-                cmt.setPostId(postId);
-                cmt.setAuthorName(author);
-                cmt.setContent(content);
-                cmt.setCreatedAt(LocalDateTime.now());
-                boolean ok = app.addComment(cmt);
-                if (ok) System.out.println("Đã thêm bình luận");
-            } else if ("6".equals(choice)) {
-                if (loggedIn == null) { System.out.println("Vui lòng đăng nhập trước."); continue; }
-                System.out.print("Nhập commentId cần xóa: ");
-                String s = scanner.nextLine();
-                int commentId = 0;
-                try { commentId = Integer.parseInt(s); } catch (NumberFormatException e) { System.out.println("Không hợp lệ"); continue; }
-                boolean ok = app.deleteComment(commentId);
-                System.out.println(ok ? "Đã xóa bình luận." : "Không tìm thấy bình luận.");
-            } else if ("7".equals(choice)) {
-                System.out.print("Username: ");
-                String username = scanner.nextLine();
-                if (username == null) username = "";
-                Optional<User> existed = app.findUserByUsername(username);
-                if (existed.isPresent()) { System.out.println("Username đã tồn tại."); continue; }
-                System.out.print("Mật khẩu: ");
-                String password = scanner.nextLine();
-                System.out.print("Tên hiển thị: ");
-                String display = scanner.nextLine();
-                User u = new User();
-                u.setUsername(username);
-                u.setPasswordHash(password);
-                u.setDisplayName(display);
-                u.setCreatedAt(LocalDateTime.now());
-                app.addUser(u);
-                System.out.println("Đăng ký thành công");
-            } else if ("8".equals(choice)) {
-                System.out.print("Username: ");
-                String username = scanner.nextLine();
-                System.out.print("Mật khẩu: ");
-                String password = scanner.nextLine();
-                Optional<User> u = app.authenticateUser(username, password);
-                if (u.isPresent()) { loggedIn = u.get(); System.out.println("Đăng nhập thành công."); }
-                else { System.out.println("Sai thông tin đăng nhập."); }
-            } else if ("9".equals(choice)) {
-                loggedIn = null;
-                System.out.println("Đã đăng xuất.");
-            } else if ("10".equals(choice)) {
-                System.out.print("Nhập từ khóa: ");
-                String keyword = scanner.nextLine();
-                List<Post> results = app.searchPosts(keyword);
-                if (results.isEmpty()) {
-                    System.out.println("Không tìm thấy bài viết phù hợp.");
+                } else if ("11".equals(choice)) {
+                    System.out.println("\n--- THỐNG KÊ SQL ---");
+                    SqlMetrics.getInstance().printReport(System.out);
+                    System.out.println("\n--- POOL KẾT NỐI ---");
+                    System.out.println(Database.getPoolStats());
+                    System.out.println("\n--- CACHE BÀI VIẾT ---");
+                    System.out.println(app.getPostCacheStats());
+                } else if ("0".equals(choice)) {
+                    running = false;
                 } else {
-                    System.out.println("Kết quả tìm kiếm:");
-                    for (Post p : results) {
-                        System.out.println("ID=" + p.getId() + " | " + p.getTitle());
-                    }
+                    System.out.println("Lựa chọn không hợp lệ");
                 }
-            } else if ("0".equals(choice)) {
-                running = false;
-            } else {
-                System.out.println("Lựa chọn không hợp lệ");
+            } catch (DataAccessException e) {
+                System.out.println("Lỗi CSDL: " + e.getMessage());
             }
         }
         scanner.close();
+        Database.shutdown();
         System.out.println("Tạm biệt!");
     }
+
+    // Danh sách bài viết theo trang: n = trang sau, p = trang trước, q = quay lại menu
+    private static void listPosts(JdbcBlogService app, Scanner scanner) {
+        // Mốc bắt đầu của các trang đã xem (null = trang đầu)
+        List<PostSummary> pageStarts = new ArrayList<>();
+        PostSummary start = null;
+        int pageNumber = 1;
+        while (true) {
+            // Lấy dư một dòng để biết còn trang sau hay không
+            List<PostSummary> page = start == null
+                    ? app.getPostSummaryPage(null, 0, PAGE_SIZE + 1)
+                    : app.getPostSummaryPage(start.getCreatedAt(), start.getId(), PAGE_SIZE + 1);
+            boolean hasNext = page.size() > PAGE_SIZE;
+            if (hasNext) {
+                page = page.subList(0, PAGE_SIZE);
+            }
+            if (page.isEmpty() && pageNumber == 1) {
+                System.out.println("(Trống)");
+                return;
+            }
+            System.out.println("\n--- Trang " + pageNumber + " ---");
+            for (PostSummary p : page) {
+                System.out.println("ID=" + p.getId() + " | " + p.getTitle() + " (" + p.getCommentCount() + " bình luận)");
+            }
+            System.out.print((hasNext ? "[n] Trang sau  " : "") + (pageNumber > 1 ? "[p] Trang trước  " : "") + "[q] Quay lại: ");
+            String nav = scanner.nextLine();
+            if ("n".equalsIgnoreCase(nav) && hasNext) {
+                pageStarts.add(start);
+                start = page.get(page.size() - 1);
+                pageNumber++;
+            } else if ("p".equalsIgnoreCase(nav) && pageNumber > 1) {
+                start = pageStarts.remove(pageStarts.size() - 1);
+                pageNumber--;
+            } else if ("q".equalsIgnoreCase(nav) || nav == null || nav.isEmpty()) {
+                return;
+            }
+        }
+    }
 }
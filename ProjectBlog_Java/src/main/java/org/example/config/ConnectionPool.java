@@ -0,0 +1,324 @@
+package org.example.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pool kết nối có giới hạn: min/max, chờ có timeout, dọn kết nối rảnh,
+// kiểm tra kết nối khi mượn và cảnh báo kết nối bị giữ quá lâu (leak).
+public final class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    // Chụp stack trace lúc mượn (tốn kém, chỉ bật khi cần tìm chỗ leak)
+    private final boolean leakTrace;
+    private final long validationBypassMillis;
+    private final int statementCacheSize;
+    private final int validationTimeoutSeconds = 5;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition available = lock.newCondition();
+    // LIFO: kết nối vừa trả về được dùng lại trước, kết nối cũ ở cuối sẽ bị dọn
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private int totalCount;
+    private int waiters;
+    private boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, boolean leakTrace,
+                          long validationBypassMillis, int statementCacheSize) {
+        if (maxSize <= 0 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Cấu hình pool không hợp lệ: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.leakTrace = leakTrace;
+        this.validationBypassMillis = validationBypassMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blog-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1_000L, Math.min(30_000L, idleTimeoutMillis / 2));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // ========== MƯỢN / TRẢ ==========
+
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (true) {
+            PooledConnection pc;
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && totalCount >= maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.increment();
+                        throw new SQLTimeoutException("Hết thời gian chờ kết nối sau " + maxWaitMillis
+                                + " ms (active=" + borrowed.size() + ", max=" + maxSize + ")");
+                    }
+                    waiters++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Bị ngắt khi đang chờ kết nối", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Pool kết nối đã đóng");
+                }
+                pc = idle.pollFirst();
+                if (pc == null) {
+                    totalCount++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (pc == null) {
+                pc = createConnection();
+            } else if (!pc.validate(validationTimeoutSeconds, validationBypassMillis)) {
+                destroy(pc);
+                continue;
+            }
+
+            // Mặc định chỉ ghi thời điểm mượn; stack trace chỉ chụp khi bật DB_POOL_LEAK_TRACE
+            pc.markBorrowed(leakTrace && leakThresholdMillis > 0 ? new Throwable("Kết nối được mượn tại") : null);
+            borrowed.add(pc);
+
+            long elapsed = System.nanoTime() - start;
+            borrowCount.increment();
+            borrowNanos.add(elapsed);
+            maxBorrowNanos.accumulateAndGet(elapsed, Math::max);
+            return pc.newHandle();
+        }
+    }
+
+    void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        boolean reusable = pc.reset();
+        pc.markReturned();
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                idle.addFirst(pc);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(pc);
+    }
+
+    // ========== QUẢN LÝ VÒNG ĐỜI ==========
+
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            StatementCache cache = statementCacheSize > 0
+                    ? new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses)
+                    : null;
+            PooledConnection pc = new PooledConnection(this, DriverManager.getConnection(url, username, password), cache);
+            createdCount.increment();
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                totalCount--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        pc.closePhysical();
+        destroyedCount.increment();
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("Lỗi khi dọn dẹp pool kết nối: " + e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> evicted = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalCount - evicted.size() > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.getLastReturnedAt() < idleTimeoutMillis) {
+                    break;
+                }
+                it.remove();
+                evicted.add(pc);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection pc : evicted) {
+            destroy(pc);
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakThresholdMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pc : borrowed) {
+            if (!pc.isLeakReported() && now - pc.getBorrowedAt() > leakThresholdMillis) {
+                pc.setLeakReported(true);
+                leakCount.increment();
+                System.err.println("Cảnh báo: kết nối bị giữ quá " + leakThresholdMillis + " ms, có thể bị leak");
+                Throwable trace = pc.getBorrowTrace();
+                if (trace != null) {
+                    trace.printStackTrace();
+                } else {
+                    System.err.println("(đặt DB_POOL_LEAK_TRACE=1 để xem nơi mượn kết nối)");
+                }
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || totalCount >= minSize) {
+                    return;
+                }
+                totalCount++;
+            } finally {
+                lock.unlock();
+            }
+            PooledConnection pc;
+            try {
+                pc = createConnection();
+            } catch (SQLException e) {
+                return;
+            }
+            pc.markReturned();
+            lock.lock();
+            try {
+                idle.addLast(pc);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            destroy(pc);
+        }
+    }
+
+    // ========== THỐNG KÊ ==========
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            long count = borrowCount.sum();
+            return new PoolStats(
+                    totalCount,
+                    borrowed.size(),
+                    idle.size(),
+                    waiters,
+                    count,
+                    timeoutCount.sum(),
+                    createdCount.sum(),
+                    destroyedCount.sum(),
+                    leakCount.sum(),
+                    count == 0 ? 0 : borrowNanos.sum() / count,
+                    maxBorrowNanos.get(),
+                    statementCacheHits.sum(),
+                    statementCacheMisses.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
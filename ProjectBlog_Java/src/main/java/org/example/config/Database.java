@@ -1,7 +1,6 @@
 package org.example.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public final class Database {
@@ -12,18 +11,90 @@ public final class Database {
     private static String username = System.getenv().getOrDefault("DB_USER", "sa");
     private static String password = System.getenv().getOrDefault("DB_PASS", "123");
 
+    // Cấu hình pool kết nối
+    private static int poolMinSize = envInt("DB_POOL_MIN", 2);
+    private static int poolMaxSize = envInt("DB_POOL_MAX", 10);
+    private static long poolMaxWaitMillis = envLong("DB_POOL_TIMEOUT_MS", 30_000L);
+    private static long poolIdleTimeoutMillis = envLong("DB_POOL_IDLE_TIMEOUT_MS", 600_000L);
+    private static long poolLeakThresholdMillis = envLong("DB_POOL_LEAK_THRESHOLD_MS", 60_000L);
+    private static boolean poolLeakTrace = envBoolean("DB_POOL_LEAK_TRACE", false);
+    private static long poolValidationBypassMillis = envLong("DB_POOL_VALIDATION_BYPASS_MS", 500L);
+    // Số PreparedStatement được cache trên mỗi kết nối (0 = tắt cache)
+    private static int statementCacheSize = envInt("DB_STMT_CACHE_SIZE", 32);
+    // Thời gian tối đa của một câu lệnh (giây, 0 = không giới hạn) và số dòng driver lấy mỗi lượt
+    private static volatile int queryTimeoutSeconds = envInt("DB_QUERY_TIMEOUT_SECONDS", 30);
+    private static volatile int fetchSize = envInt("DB_FETCH_SIZE", 100);
+
+    private static volatile ConnectionPool pool;
+
     private Database() {}
 
+    // Mượn kết nối từ pool; gọi close() (hoặc closeConnection) để trả lại
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, username, password);
+        return getPool().borrow();
     }
 
-    public static void configure(String jdbcUrl, String user, String pass) {
+    public static synchronized void configure(String jdbcUrl, String user, String pass) {
         url = jdbcUrl;
         username = user;
         password = pass;
+        shutdown();
+    }
+
+    public static synchronized void configurePool(int minSize, int maxSize, long maxWaitMillis,
+                                                  long idleTimeoutMillis, long leakThresholdMillis) {
+        poolMinSize = minSize;
+        poolMaxSize = maxSize;
+        poolMaxWaitMillis = maxWaitMillis;
+        poolIdleTimeoutMillis = idleTimeoutMillis;
+        poolLeakThresholdMillis = leakThresholdMillis;
+        shutdown();
+    }
+
+    public static synchronized void configureStatementCache(int cacheSize) {
+        statementCacheSize = cacheSize;
+        shutdown();
+    }
+
+    // Áp dụng cho các câu lệnh tạo sau đó, không cần tạo lại pool
+    public static void configureQueries(int timeoutSeconds, int rowsPerFetch) {
+        if (timeoutSeconds < 0 || rowsPerFetch < 0) {
+            throw new IllegalArgumentException("Cấu hình truy vấn không hợp lệ: timeout=" + timeoutSeconds
+                    + ", fetchSize=" + rowsPerFetch);
+        }
+        queryTimeoutSeconds = timeoutSeconds;
+        fetchSize = rowsPerFetch;
+    }
+
+    public static int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    public static int getFetchSize() {
+        return fetchSize;
+    }
+
+    // Một số câu lệnh (MERGE ... OUTPUT) chỉ dùng được trên SQL Server
+    public static boolean isSqlServer() {
+        return url.startsWith("jdbc:sqlserver:");
+    }
+
+    public static PoolStats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    public static int getPoolMaxSize() {
+        return poolMaxSize;
     }
-    
+
+    // Đóng toàn bộ kết nối đang rảnh; kết nối đang mượn sẽ bị đóng khi được trả về
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
     public static void closeConnection(Connection con) {
         try {
             if (con != null) {
@@ -33,5 +104,51 @@ public final class Database {
             e.printStackTrace();
         }
     }
-}
 
+    private static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (Database.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(url, username, password,
+                            poolMinSize, poolMaxSize, poolMaxWaitMillis,
+                            poolIdleTimeoutMillis, poolLeakThresholdMillis, poolLeakTrace,
+                            poolValidationBypassMillis, statementCacheSize);
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    // Đọc biến môi trường dạng số; không có hoặc sai định dạng thì dùng giá trị mặc định
+    public static int envInt(String name, int defaultValue) {
+        return (int) envLong(name, defaultValue);
+    }
+
+    public static long envLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    // Cờ bật/tắt: 1/true/yes/on hoặc 0/false/no/off (không phân biệt hoa thường), giá trị khác dùng mặc định
+    public static boolean envBoolean(String name, boolean defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "1", "true", "yes", "on" -> true;
+            case "0", "false", "no", "off" -> false;
+            default -> defaultValue;
+        };
+    }
+}
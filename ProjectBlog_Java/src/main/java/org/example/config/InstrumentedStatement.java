@@ -0,0 +1,142 @@
+package org.example.config;
+
+import org.example.metrics.SqlMetrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+// Bọc PreparedStatement để đo thời gian các lệnh execute* và đếm số dòng,
+// số liệu được gom vào SqlMetrics theo câu SQL gốc.
+// getConnection() trả về kết nối của pool (owner) chứ không phải kết nối vật lý của driver,
+// để người gọi không đóng/giữ nhầm kết nối vật lý.
+final class InstrumentedStatement implements InvocationHandler {
+    private final PreparedStatement target;
+    private final Connection owner;
+    private final String sql;
+    private final SqlMetrics metrics;
+
+    private InstrumentedStatement(PreparedStatement target, Connection owner, String sql, SqlMetrics metrics) {
+        this.target = target;
+        this.owner = owner;
+        this.sql = sql;
+        this.metrics = metrics;
+    }
+
+    static PreparedStatement wrap(PreparedStatement target, Connection owner, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new InstrumentedStatement(target, owner, sql, SqlMetrics.getInstance()));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return target.toString();
+            case "getConnection":
+                return owner;
+            default:
+                break;
+        }
+        if (!name.startsWith("execute")) {
+            return call(method, args, target);
+        }
+
+        long start = System.nanoTime();
+        Object ketQua;
+        try {
+            ketQua = call(method, args, target);
+        } catch (Throwable e) {
+            metrics.record(sql, System.nanoTime() - start, -1, true);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (ketQua instanceof ResultSet) {
+            metrics.record(sql, elapsed, -1, false);
+            return countingResultSet((ResultSet) ketQua, (PreparedStatement) proxy);
+        }
+        metrics.record(sql, elapsed, affectedRows(ketQua), false);
+        return ketQua;
+    }
+
+    private static long affectedRows(Object ketQua) {
+        if (ketQua instanceof Integer || ketQua instanceof Long) {
+            return ((Number) ketQua).longValue();
+        }
+        long total = 0;
+        if (ketQua instanceof int[]) {
+            for (int n : (int[]) ketQua) {
+                total += Math.max(n, 0);
+            }
+        } else if (ketQua instanceof long[]) {
+            for (long n : (long[]) ketQua) {
+                total += Math.max(n, 0);
+            }
+        }
+        // execute() trả về boolean: số dòng không xác định
+        return ketQua instanceof Boolean ? -1 : total;
+    }
+
+    // Đếm số lần next() thành công, cộng vào thống kê khi đọc hết hoặc khi đóng ResultSet
+    // getStatement() trả về statement đã bọc, không lộ statement của driver
+    private ResultSet countingResultSet(ResultSet rs, PreparedStatement statement) {
+        InvocationHandler handler = new InvocationHandler() {
+            private long rows;
+            private boolean reported;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                switch (name) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "getStatement":
+                        return statement;
+                    default:
+                        break;
+                }
+                Object ketQua = call(method, args, rs);
+                if ("next".equals(name)) {
+                    if ((Boolean) ketQua) {
+                        rows++;
+                    } else {
+                        report();
+                    }
+                } else if ("close".equals(name)) {
+                    report();
+                }
+                return ketQua;
+            }
+
+            private void report() {
+                if (!reported) {
+                    reported = true;
+                    metrics.addRows(sql, rows);
+                }
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, handler);
+    }
+
+    private static Object call(Method method, Object[] args, Object target) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
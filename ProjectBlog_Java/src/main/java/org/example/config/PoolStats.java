@@ -0,0 +1,75 @@
+package org.example.config;
+
+// Ảnh chụp số liệu của ConnectionPool tại một thời điểm (dùng để chọn min/max cho pool)
+public final class PoolStats {
+    private final int total;
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long leakCount;
+    private final long avgBorrowNanos;
+    private final long maxBorrowNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolStats(int total, int active, int idle, int waiters,
+                     long borrowCount, long timeoutCount, long createdCount, long destroyedCount,
+                     long leakCount, long avgBorrowNanos, long maxBorrowNanos,
+                     long statementCacheHits, long statementCacheMisses) {
+        this.total = total;
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.leakCount = leakCount;
+        this.avgBorrowNanos = avgBorrowNanos;
+        this.maxBorrowNanos = maxBorrowNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    public int getTotal() { return total; }
+    public int getActive() { return active; }
+    public int getIdle() { return idle; }
+    public int getWaiters() { return waiters; }
+    public long getBorrowCount() { return borrowCount; }
+    public long getTimeoutCount() { return timeoutCount; }
+    public long getCreatedCount() { return createdCount; }
+    public long getDestroyedCount() { return destroyedCount; }
+    public long getLeakCount() { return leakCount; }
+    public long getAvgBorrowNanos() { return avgBorrowNanos; }
+    public long getMaxBorrowNanos() { return maxBorrowNanos; }
+    public long getStatementCacheHits() { return statementCacheHits; }
+    public long getStatementCacheMisses() { return statementCacheMisses; }
+
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "total=" + total +
+                ", active=" + active +
+                ", idle=" + idle +
+                ", waiters=" + waiters +
+                ", borrowCount=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", created=" + createdCount +
+                ", destroyed=" + destroyedCount +
+                ", leaks=" + leakCount +
+                ", avgBorrowMicros=" + avgBorrowNanos / 1_000 +
+                ", maxBorrowMicros=" + maxBorrowNanos / 1_000 +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                '}';
+    }
+}
@@ -0,0 +1,160 @@
+package org.example.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Một kết nối vật lý nằm trong pool. Mỗi lần mượn sẽ phát ra một "handle" (proxy) mới,
+// gọi close() trên handle chỉ trả kết nối về pool chứ không đóng kết nối thật.
+final class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final long createdAt;
+    private final StatementCache statementCache;
+
+    private volatile long lastReturnedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+        this.statementCache = statementCache;
+    }
+
+    Connection newHandle() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Handle());
+    }
+
+    void markBorrowed(Throwable trace) {
+        borrowedAt = System.currentTimeMillis();
+        borrowTrace = trace;
+        leakReported = false;
+    }
+
+    void markReturned() {
+        lastReturnedAt = System.currentTimeMillis();
+        borrowTrace = null;
+    }
+
+    // Kiểm tra kết nối còn sống; bỏ qua nếu vừa được trả về trong khoảng bypassMillis
+    boolean validate(int timeoutSeconds, long bypassMillis) {
+        if (System.currentTimeMillis() - lastReturnedAt < bypassMillis) {
+            return true;
+        }
+        try {
+            return physical.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Đưa kết nối về trạng thái sạch trước khi cho mượn lại
+    boolean reset() {
+        if (statementCache != null) {
+            statementCache.returnAll();
+        }
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // kết nối đã hỏng, không cần xử lý thêm
+        }
+    }
+
+    long getCreatedAt() { return createdAt; }
+    long getLastReturnedAt() { return lastReturnedAt; }
+    long getBorrowedAt() { return borrowedAt; }
+    Throwable getBorrowTrace() { return borrowTrace; }
+    boolean isLeakReported() { return leakReported; }
+    void setLeakReported(boolean leakReported) { this.leakReported = leakReported; }
+
+    // Chỉ cache prepareStatement(sql) và prepareStatement(sql, autoGeneratedKeys);
+    // các biến thể khác (scrollable, holdability...) đi thẳng xuống driver
+    private PreparedStatement prepareCached(Connection owner, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        if (args.length == 1) {
+            return statementCache.checkout(sql, owner, () -> physical.prepareStatement(sql));
+        }
+        if (args.length == 2 && args[1] instanceof Integer) {
+            int keys = (Integer) args[1];
+            return statementCache.checkout(sql + "#keys=" + keys, owner, () -> physical.prepareStatement(sql, keys));
+        }
+        return null;
+    }
+
+    private final class Handle implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + (closed ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Kết nối đã được trả về pool");
+            }
+            if ("prepareStatement".equals(name)) {
+                // Mọi PreparedStatement (có cache hay không) đều được đo thời gian qua SqlMetrics;
+                // getConnection() của statement trả về proxy này như StatementCache đã làm
+                Connection owner = (Connection) proxy;
+                PreparedStatement cached = statementCache != null ? prepareCached(owner, args) : null;
+                return InstrumentedStatement.wrap(cached != null ? cached : (PreparedStatement) invokePhysical(method, args),
+                        owner, (String) args[0]);
+            }
+            return invokePhysical(method, args);
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
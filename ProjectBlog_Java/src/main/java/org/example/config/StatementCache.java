@@ -0,0 +1,167 @@
+package org.example.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache LRU các PreparedStatement của MỘT kết nối vật lý, khóa theo câu SQL.
+// Mỗi kết nối chỉ được một luồng mượn tại một thời điểm nên không cần đồng bộ.
+final class StatementCache {
+
+    interface Preparer {
+        PreparedStatement prepare() throws SQLException;
+    }
+
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final Map<String, Entry> entries;
+    private final List<Entry> checkedOut = new ArrayList<>();
+
+    StatementCache(int capacity, LongAdder hits, LongAdder misses) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                Entry e = eldest.getValue();
+                e.evicted = true;
+                if (e.handle == null) {
+                    e.closePhysical();
+                }
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement checkout(String key, Connection owner, Preparer preparer) throws SQLException {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.handle != null) {
+            // Câu lệnh đang được dùng dở trên cùng kết nối: tạo câu lệnh riêng, không cache
+            misses.increment();
+            return preparer.prepare();
+        }
+        if (entry == null) {
+            misses.increment();
+            entry = new Entry(preparer.prepare());
+            entries.put(key, entry);
+        } else {
+            hits.increment();
+        }
+        entry.handle = new Handle(entry, owner);
+        checkedOut.add(entry);
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                entry.handle);
+    }
+
+    // Gọi khi kết nối được trả về pool: thu hồi mọi câu lệnh chưa được close()
+    void returnAll() {
+        for (Entry e : new ArrayList<>(checkedOut)) {
+            if (e.handle != null) {
+                e.handle.giveBack();
+            }
+        }
+        checkedOut.clear();
+    }
+
+    void closeAll() {
+        for (Entry e : entries.values()) {
+            e.closePhysical();
+        }
+        entries.clear();
+        checkedOut.clear();
+    }
+
+    private final class Entry {
+        private final PreparedStatement physical;
+        private Handle handle;
+        private boolean evicted;
+
+        Entry(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // bỏ qua, câu lệnh sẽ bị hủy cùng kết nối
+            }
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Entry entry;
+        private final Connection owner;
+        private boolean closed;
+
+        Handle(Entry entry, Connection owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        void giveBack() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            entry.handle = null;
+            checkedOut.remove(entry);
+            if (entry.evicted) {
+                entry.closePhysical();
+                return;
+            }
+            try {
+                entry.physical.clearParameters();
+            } catch (SQLException e) {
+                entry.evicted = true;
+                entries.values().remove(entry);
+                entry.closePhysical();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack();
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Câu lệnh đã đóng");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
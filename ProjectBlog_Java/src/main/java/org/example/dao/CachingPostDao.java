@@ -0,0 +1,284 @@
+package org.example.dao;
+
+import org.example.config.Database;
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.PostSummary;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Decorator cache đọc-qua (read-through) cho bất kỳ PostDao nào: cache kết quả findById /
+// findByIdWithComments theo id, giới hạn số phần tử (LRU) và thời gian sống (TTL).
+// Ghi (update, deleteById) sẽ xóa phần tử tương ứng; thêm/xóa bình luận thì gọi invalidate().
+public class CachingPostDao implements PostDao {
+    private final PostDao delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // accessOrder = true: phần tử ít được đọc gần đây nhất đứng đầu, bị loại trước
+    private final LinkedHashMap<Integer, Entry> entries;
+    // Các id đang được nạp từ DB (giữ trong khóa entries). invalidate(id) tăng phiên bản của id đó:
+    // kết quả nạp bắt đầu trước khi ghi không được đưa vào cache, lần nạp của các id khác không bị ảnh hưởng
+    private final Map<Integer, Fill> fills = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public CachingPostDao(PostDao delegate) {
+        this(delegate, Database.envInt("POST_CACHE_SIZE", 1000), Database.envInt("POST_CACHE_TTL_SECONDS", 60));
+    }
+
+    public CachingPostDao(PostDao delegate, int maxSize, long ttlSeconds) {
+        if (maxSize <= 0 || ttlSeconds <= 0) {
+            throw new IllegalArgumentException("maxSize và ttlSeconds phải lớn hơn 0");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > CachingPostDao.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ========== ĐỌC QUA CACHE ==========
+
+    @Override
+    public Optional<Post> findById(int id) {
+        Entry entry = lookup(id);
+        if (entry != null) {
+            hits.increment();
+            return Optional.of(copyOf(entry.post, false));
+        }
+        misses.increment();
+        Optional<Post> loaded = load(id, false);
+        return loaded.map(post -> copyOf(post, false));
+    }
+
+    @Override
+    public Optional<Post> findByIdWithComments(int id) {
+        Entry entry = lookup(id);
+        if (entry != null && entry.withComments) {
+            hits.increment();
+            return Optional.of(copyOf(entry.post, true));
+        }
+        misses.increment();
+        Optional<Post> loaded = load(id, true);
+        return loaded.map(post -> copyOf(post, true));
+    }
+
+    // ========== GHI: XÓA CACHE ==========
+
+    @Override
+    public Post insert(Post post) {
+        return delegate.insert(post);
+    }
+
+    @Override
+    public boolean update(Post post) {
+        try {
+            return delegate.update(post);
+        } finally {
+            invalidate(post.getId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return delegate.deleteById(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    public void invalidate(int postId) {
+        synchronized (entries) {
+            Fill fill = fills.get(postId);
+            if (fill != null) {
+                fill.version++;
+            }
+            if (entries.remove(postId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (Fill fill : fills.values()) {
+                fill.version++;
+            }
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        synchronized (entries) {
+            return new CacheStats(entries.size(), maxSize, hits.sum(), misses.sum(),
+                    evictions.sum(), expirations.sum(), invalidations.sum());
+        }
+    }
+
+    // ========== CÁC HÀM KHÁC: CHUYỂN THẲNG XUỐNG DAO GỐC ==========
+
+    @Override
+    public List<Post> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public void forEachPost(Consumer<Post> consumer) {
+        delegate.forEachPost(consumer);
+    }
+
+    @Override
+    public void forEachPostContent(PostContentHandler handler) {
+        delegate.forEachPostContent(handler);
+    }
+
+    @Override
+    public List<Post> findPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return delegate.findPage(afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public List<PostSummary> findSummaryPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return delegate.findSummaryPage(afterCreatedAt, afterId, limit);
+    }
+
+    @Override
+    public List<PostSummary> findSummariesByIds(Collection<Integer> ids) {
+        return delegate.findSummariesByIds(ids);
+    }
+
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return delegate.findExistingIds(ids);
+    }
+
+    @Override
+    public List<Post> findByIds(Collection<Integer> ids) {
+        return delegate.findByIds(ids);
+    }
+
+    // ========== NỘI BỘ ==========
+
+    private Entry lookup(int id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && System.nanoTime() - entry.expiresAt > 0) {
+                entries.remove(id);
+                expirations.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    // Nạp từ DAO gốc rồi đưa vào cache nếu trong lúc nạp id này không bị invalidate
+    private Optional<Post> load(int id, boolean withComments) {
+        Fill fill;
+        long version;
+        synchronized (entries) {
+            fill = fills.computeIfAbsent(id, k -> new Fill());
+            fill.loaders++;
+            version = fill.version;
+        }
+        Optional<Post> loaded = Optional.empty();
+        try {
+            loaded = withComments ? delegate.findByIdWithComments(id) : delegate.findById(id);
+            return loaded;
+        } finally {
+            store(id, loaded.orElse(null), withComments, fill, version);
+        }
+    }
+
+    private void store(int id, Post post, boolean withComments, Fill fill, long version) {
+        Entry entry = post == null ? null
+                : new Entry(copyOf(post, withComments), withComments, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            if (--fill.loaders == 0) {
+                fills.remove(id);
+            }
+            // id bị invalidate trong lúc nạp
+            if (fill.version != version || entry == null) {
+                return;
+            }
+            // Không thay phần tử đã có bình luận bằng phần tử không có bình luận
+            Entry current = entries.get(id);
+            if (current != null && current.withComments && !withComments
+                    && System.nanoTime() - current.expiresAt <= 0) {
+                return;
+            }
+            entries.put(id, entry);
+            purgeExpired();
+        }
+    }
+
+    // Dọn vài phần tử hết hạn ở đầu danh sách LRU mỗi lần ghi để cache không giữ rác quá lâu
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        Iterator<Entry> it = entries.values().iterator();
+        for (int i = 0; i < 4 && it.hasNext(); i++) {
+            if (now - it.next().expiresAt > 0) {
+                it.remove();
+                expirations.increment();
+            }
+        }
+    }
+
+    // Post là đối tượng có thể sửa, nên cache chỉ giữ và trả ra bản sao
+    private static Post copyOf(Post post, boolean withComments) {
+        Post copy = new Post(post.getId(), post.getTitle(), post.getContent(), post.getAuthorId(),
+                post.getCreatedAt(), post.getUpdatedAt());
+        if (withComments) {
+            List<Comment> comments = new ArrayList<>(post.getComments().size());
+            for (Comment c : post.getComments()) {
+                comments.add(new Comment(c.getId(), c.getPostId(), c.getAuthorName(), c.getContent(), c.getCreatedAt()));
+            }
+            copy.setComments(comments);
+        }
+        return copy;
+    }
+
+    // Số lần nạp đang chạy và phiên bản của một id, chỉ đọc/ghi trong khóa entries
+    private static final class Fill {
+        private int loaders;
+        private long version;
+    }
+
+    private static final class Entry {
+        private final Post post;
+        private final boolean withComments;
+        private final long expiresAt;
+
+        Entry(Post post, boolean withComments, long expiresAt) {
+            this.post = post;
+            this.withComments = withComments;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,12 +2,18 @@ package org.example.dao;
 
 import org.example.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface CommentDao {
-    Comment insert(Comment comment);
+    // Chỉ thêm khi bài viết tồn tại; trả về bình luận đã có id, hoặc rỗng nếu không tìm thấy bài viết
+    Optional<Comment> insert(Comment comment);
+    List<Comment> insertAll(Collection<Comment> comments);
     boolean deleteById(int id);
     List<Comment> findByPostId(int postId);
+    Map<Integer, List<Comment>> findByPostIds(Collection<Integer> postIds);
 }
 
 
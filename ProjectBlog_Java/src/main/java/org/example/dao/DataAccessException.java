@@ -0,0 +1,19 @@
+package org.example.dao;
+
+// Lỗi khi truy cập CSDL (bọc SQLException thành unchecked để DAO không phải nuốt lỗi).
+// Các lớp con cho biết loại lỗi để nơi gọi quyết định thử lại hay báo cho người dùng
+public class DataAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String sql;
+
+    public DataAccessException(String message, String sql, Throwable cause) {
+        super(sql == null ? message : message + " [" + sql + "]", cause);
+        this.sql = sql;
+    }
+
+    // Câu SQL gây lỗi, null nếu lỗi không gắn với câu lệnh nào (mượn kết nối, commit...)
+    public String getSql() {
+        return sql;
+    }
+}
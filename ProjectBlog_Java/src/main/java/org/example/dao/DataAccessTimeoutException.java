@@ -0,0 +1,10 @@
+package org.example.dao;
+
+// Câu lệnh chạy quá thời gian cho phép, hoặc chờ kết nối từ pool quá lâu
+public class DataAccessTimeoutException extends DataAccessException {
+    private static final long serialVersionUID = 1L;
+
+    public DataAccessTimeoutException(String message, String sql, Throwable cause) {
+        super(message, sql, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.dao;
+
+// Vi phạm ràng buộc dữ liệu (trùng khóa, khóa ngoại, NOT NULL...): thử lại cũng không được
+public class DataIntegrityException extends DataAccessException {
+    private static final long serialVersionUID = 1L;
+
+    public DataIntegrityException(String message, String sql, Throwable cause) {
+        super(message, sql, cause);
+    }
+}
@@ -1,18 +1,40 @@
 package org.example.dao;
 
 import org.example.model.Post;
+import org.example.model.PostSummary;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface PostDao {
+    // Nhận từng bài viết khi đọc dạng luồng; content được đọc qua Reader thay vì nạp cả chuỗi
+    @FunctionalInterface
+    interface PostContentHandler {
+        void handle(Post postWithoutContent, Reader content) throws IOException;
+    }
+
     Post insert(Post post);
     boolean update(Post post);
     boolean deleteById(int id);
     Optional<Post> findById(int id);
     List<Post> findAll();
+    // Đọc toàn bộ bảng theo luồng, từng dòng một (không gom vào danh sách)
+    void forEachPost(Consumer<Post> consumer);
+    void forEachPostContent(PostContentHandler handler);
+    // Phân trang theo khóa (created_at DESC, id DESC): afterCreatedAt = null là trang đầu
+    List<Post> findPage(LocalDateTime afterCreatedAt, int afterId, int limit);
+    // Các hàm *Summar* chỉ đọc id, tiêu đề, tác giả, ngày tạo, số bình luận và đoạn trích (không đọc content)
+    List<PostSummary> findSummaryPage(LocalDateTime afterCreatedAt, int afterId, int limit);
+    List<PostSummary> findSummariesByIds(Collection<Integer> ids);
     Optional<Post> findByIdWithComments(int id);
-    List<Post> searchByKeyword(String keyword);
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+    List<Post> findByIds(Collection<Integer> ids);
 }
 
 
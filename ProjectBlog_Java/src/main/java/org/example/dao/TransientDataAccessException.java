@@ -0,0 +1,10 @@
+package org.example.dao;
+
+// Lỗi tạm thời (mất kết nối, deadlock, transaction bị hủy): có thể thử lại
+public class TransientDataAccessException extends DataAccessException {
+    private static final long serialVersionUID = 1L;
+
+    public TransientDataAccessException(String message, String sql, Throwable cause) {
+        super(message, sql, cause);
+    }
+}
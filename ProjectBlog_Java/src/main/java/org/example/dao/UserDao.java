@@ -6,6 +6,7 @@ import java.util.Optional;
 
 public interface UserDao {
     Optional<User> findByUsername(String username);
+    Optional<User> findById(int id);
     User insert(User user);
 }
 
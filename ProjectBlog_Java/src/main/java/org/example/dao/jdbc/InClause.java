@@ -0,0 +1,51 @@
+package org.example.dao.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+// Tiện ích cho câu truy vấn dạng "WHERE x IN (?, ?, ...)".
+// Số tham số được làm tròn lên các mức cố định (8, 16, 32, ...) để cùng một câu SQL
+// được dùng lại nhiều lần và trúng statement cache của pool.
+final class InClause {
+    // SQL Server giới hạn 2100 tham số cho một câu lệnh
+    static final int MAX_PARAMS = 1000;
+
+    private InClause() {}
+
+    static List<List<Integer>> chunks(Collection<Integer> ids) {
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Integer>> ketQua = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_PARAMS) {
+            ketQua.add(distinct.subList(from, Math.min(from + MAX_PARAMS, distinct.size())));
+        }
+        return ketQua;
+    }
+
+    static int paddedSize(int n) {
+        int size = 8;
+        while (size < n) {
+            size <<= 1;
+        }
+        return Math.min(size, MAX_PARAMS);
+    }
+
+    static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append('?');
+        }
+        return sb.toString();
+    }
+
+    // Gán các id bắt đầu từ vị trí startIndex; phần đệm lặp lại id cuối cùng
+    static void bind(PreparedStatement st, int startIndex, List<Integer> chunk, int padded) throws SQLException {
+        for (int i = 0; i < padded; i++) {
+            st.setInt(startIndex + i, chunk.get(Math.min(i, chunk.size() - 1)));
+        }
+    }
+}
@@ -4,108 +4,189 @@ import org.example.dao.CommentDao;
 import org.example.config.Database;
 import org.example.model.Comment;
 
-import java.sql.*;
-import java.time.LocalDateTime;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class JdbcCommentDao implements CommentDao {
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    // Mỗi dòng MERGE dùng 4 tham số, SQL Server giới hạn 2100 tham số / câu lệnh
+    private static final int MAX_MERGE_ROWS = 500;
+    // Thứ tự cột khớp với mapComment
+    private static final String COMMENT_COLUMNS = "id, post_id, author_name, content, created_at";
+
+    private final JdbcExecutor jdbc = new JdbcExecutor();
+
+    // Số bình luận gửi đi trong một lần khi insertAll
+    private final int batchSize;
+
+    public JdbcCommentDao() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcCommentDao(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize phải lớn hơn 0");
+        }
+        this.batchSize = batchSize;
+    }
     
     @Override
-    public Comment insert(Comment comment) {
-        int ketQua = 0;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "INSERT INTO comments(post_id, author_name, content) VALUES(?, ?, ?)";
-            PreparedStatement st = con.prepareStatement(sql);
+    public Optional<Comment> insert(Comment comment) {
+        // Kiểm tra bài viết tồn tại và thêm trong cùng một câu lệnh, không cần truy vấn bài viết trước;
+        // 0 dòng nghĩa là bài viết không tồn tại
+        String sql = "INSERT INTO comments(post_id, author_name, content) " +
+                "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM posts WHERE id = ?)";
+        int id = jdbc.insert(sql, st -> {
             st.setInt(1, comment.getPostId());
             st.setString(2, comment.getAuthorName());
             st.setString(3, comment.getContent());
-            
-            // Bước 3: thực thi câu lệnh SQL
-            ketQua = st.executeUpdate();
-            
-            // Bước 4:
-            System.out.println("Bạn đã thực thi: " + sql);
-            System.out.println("Có " + ketQua + " dòng bị thay đổi!");
-            
-            // Bước 5:
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
+            st.setInt(4, comment.getPostId());
+        });
+        if (id == 0) {
+            return Optional.empty();
         }
-        
-        return comment;
+        comment.setId(id);
+        return Optional.of(comment);
     }
     
     @Override
     public boolean deleteById(int id) {
-        int ketQua = 0;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "DELETE FROM comments WHERE id = ?";
-            PreparedStatement st = con.prepareStatement(sql);
-            st.setInt(1, id);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ketQua = st.executeUpdate();
-            
-            // Bước 4:
-            System.out.println("Bạn đã thực thi: " + sql);
-            System.out.println("Có " + ketQua + " dòng bị thay đổi!");
-            
-            // Bước 5:
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return ketQua > 0;
+        return jdbc.update("DELETE FROM comments WHERE id = ?", st -> st.setInt(1, id)) > 0;
     }
     
     @Override
     public List<Comment> findByPostId(int postId) {
-        List<Comment> ketQua = new ArrayList<>();
+        String sql = "SELECT " + COMMENT_COLUMNS + " FROM comments WHERE post_id = ? ORDER BY created_at ASC";
+        return jdbc.query(sql, st -> st.setInt(1, postId), JdbcCommentDao::mapComment);
+    }
+
+    // Lấy bình luận của nhiều bài viết bằng một (hoặc vài) câu IN trên cùng một kết nối,
+    // rồi nhóm theo post_id trong bộ nhớ (giữ thứ tự created_at)
+    @Override
+    public Map<Integer, List<Comment>> findByPostIds(Collection<Integer> postIds) {
+        Map<Integer, List<Comment>> ketQua = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return ketQua;
+        }
+        return jdbc.inConnection(con -> {
+            for (List<Integer> chunk : InClause.chunks(postIds)) {
+                int padded = InClause.paddedSize(chunk.size());
+                String sql = "SELECT " + COMMENT_COLUMNS + " FROM comments WHERE post_id IN (" +
+                        InClause.placeholders(padded) + ") ORDER BY created_at ASC, id ASC";
+                List<Comment> rows = jdbc.query(con, sql, st -> InClause.bind(st, 1, chunk, padded),
+                        JdbcCommentDao::mapComment);
+                for (Comment comment : rows) {
+                    ketQua.computeIfAbsent(comment.getPostId(), k -> new ArrayList<>()).add(comment);
+                }
+            }
+            return ketQua;
+        });
+    }
+
+    // Tất cả hoặc không: lỗi ở bất kỳ nhóm nào thì rollback, xóa các id đã gán rồi ném lại lỗi
+    @Override
+    public List<Comment> insertAll(Collection<Comment> comments) {
+        List<Comment> ketQua = new ArrayList<>(comments);
+        if (ketQua.isEmpty()) {
+            return ketQua;
+        }
         try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "SELECT * FROM comments WHERE post_id = ? ORDER BY created_at ASC";
-            PreparedStatement st = con.prepareStatement(sql);
-            st.setInt(1, postId);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ResultSet rs = st.executeQuery();
-            
-            // Bước 4: xử lý kết quả
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int postId_db = rs.getInt("post_id");
-                String authorName = rs.getString("author_name");
-                String content = rs.getString("content");
-                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                
-                Comment comment = new Comment(id, postId_db, authorName, content, createdAt);
-                ketQua.add(comment);
+            return jdbc.inTransaction(con -> {
+                // Gửi từng nhóm bình luận, mỗi nhóm một lượt gửi đến server
+                boolean sqlServer = Database.isSqlServer();
+                int chunkSize = sqlServer ? Math.min(batchSize, MAX_MERGE_ROWS) : batchSize;
+                for (int from = 0; from < ketQua.size(); from += chunkSize) {
+                    List<Comment> chunk = ketQua.subList(from, Math.min(from + chunkSize, ketQua.size()));
+                    if (sqlServer) {
+                        insertChunkWithMerge(con, chunk);
+                    } else {
+                        insertChunkWithBatch(con, chunk);
+                    }
+                }
+                return ketQua;
+            });
+        } catch (RuntimeException e) {
+            for (Comment comment : ketQua) {
+                comment.setId(0);
+            }
+            throw e;
+        }
+    }
+
+    // Driver SQL Server chỉ trả về id của dòng cuối sau executeBatch, nên trên SQL Server
+    // mỗi nhóm được gửi thành một câu MERGE nhiều dòng; OUTPUT kèm số thứ tự để gán id đúng dòng
+    private void insertChunkWithMerge(Connection con, List<Comment> chunk) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (i > 0) values.append(", ");
+            values.append("(?, ?, ?, ?)");
+        }
+        String sql = "DECLARE @ids TABLE (ord INT, id INT); " +
+                "MERGE INTO comments USING (VALUES " + values + ") AS src(ord, post_id, author_name, content) " +
+                "ON 1 = 0 " +
+                "WHEN NOT MATCHED THEN INSERT (post_id, author_name, content) " +
+                "VALUES (src.post_id, src.author_name, src.content) " +
+                "OUTPUT src.ord, INSERTED.id INTO @ids; " +
+                "SELECT ord, id FROM @ids;";
+        try (PreparedStatement st = jdbc.prepare(con, sql)) {
+            int index = 1;
+            for (int i = 0; i < chunk.size(); i++) {
+                Comment comment = chunk.get(i);
+                st.setInt(index++, i);
+                st.setInt(index++, comment.getPostId());
+                st.setString(index++, comment.getAuthorName());
+                st.setString(index++, comment.getContent());
+            }
+            // Bỏ qua các update count của DECLARE/MERGE, chỉ đọc kết quả của SELECT cuối
+            boolean hasResultSet = st.execute();
+            while (hasResultSet || st.getUpdateCount() != -1) {
+                if (hasResultSet) {
+                    try (ResultSet rs = st.getResultSet()) {
+                        while (rs.next()) {
+                            chunk.get(rs.getInt(1)).setId(rs.getInt(2));
+                        }
+                    }
+                }
+                hasResultSet = st.getMoreResults();
             }
-            
-            // Bước 5: đóng kết nối
-            Database.closeConnection(con);
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw JdbcExecutor.translate(sql, e);
         }
-        
-        return ketQua;
     }
-}
 
+    private void insertChunkWithBatch(Connection con, List<Comment> chunk) {
+        String sql = "INSERT INTO comments(post_id, author_name, content) VALUES(?, ?, ?)";
+        try (PreparedStatement st = jdbc.prepare(con, sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Comment comment : chunk) {
+                st.setInt(1, comment.getPostId());
+                st.setString(2, comment.getAuthorName());
+                st.setString(3, comment.getContent());
+                st.addBatch();
+            }
+            st.executeBatch();
+            try (ResultSet keys = st.getGeneratedKeys()) {
+                int i = 0;
+                while (keys.next() && i < chunk.size()) {
+                    chunk.get(i++).setId(keys.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw JdbcExecutor.translate(sql, e);
+        }
+    }
 
+    // Đọc theo thứ tự cột của COMMENT_COLUMNS
+    private static Comment mapComment(ResultSet rs) throws SQLException {
+        return new Comment(rs.getInt(1), rs.getInt(2), rs.getString(3), rs.getString(4),
+                rs.getTimestamp(5).toLocalDateTime());
+    }
+}
@@ -0,0 +1,244 @@
+package org.example.dao.jdbc;
+
+import org.example.config.Database;
+import org.example.dao.DataAccessException;
+import org.example.dao.DataAccessTimeoutException;
+import org.example.dao.DataIntegrityException;
+import org.example.dao.TransientDataAccessException;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Lớp thực thi JDBC dùng chung cho các DAO:
+//   - kết nối, PreparedStatement và ResultSet luôn được đóng (try-with-resources), kể cả khi lỗi;
+//     với pool thì "đóng" là trả kết nối / trả câu lệnh về statement cache
+//   - mỗi câu lệnh được đặt query timeout và fetch size (mặc định lấy từ Database, DB_QUERY_TIMEOUT_SECONDS / DB_FETCH_SIZE)
+//   - SQLException được chuyển thành DataAccessException (và các lớp con theo loại lỗi) kèm câu SQL
+// Các hàm không nhận Connection tự mượn kết nối cho đúng một câu lệnh; inConnection / inTransaction
+// cho nhiều câu lệnh trên cùng một kết nối.
+final class JdbcExecutor {
+    // Dùng giá trị cấu hình trong Database
+    private static final int FROM_CONFIG = -1;
+
+    @FunctionalInterface
+    interface Binder {
+        Binder NONE = st -> { };
+
+        void bind(PreparedStatement st) throws SQLException;
+    }
+
+    // Đọc dòng hiện tại theo chỉ số cột (không tra theo tên cột)
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Xử lý từng dòng khi đọc dạng luồng, không gom kết quả
+    @FunctionalInterface
+    interface RowHandler {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    interface ConnectionWork<T> {
+        T run(Connection con) throws SQLException;
+    }
+
+    private final int queryTimeoutSeconds;
+    private final int fetchSize;
+
+    JdbcExecutor() {
+        this(FROM_CONFIG, FROM_CONFIG);
+    }
+
+    private JdbcExecutor(int queryTimeoutSeconds, int fetchSize) {
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.fetchSize = fetchSize;
+    }
+
+    JdbcExecutor withQueryTimeout(int seconds) {
+        return new JdbcExecutor(seconds, fetchSize);
+    }
+
+    JdbcExecutor withFetchSize(int rows) {
+        return new JdbcExecutor(queryTimeoutSeconds, rows);
+    }
+
+    // ========== MỘT CÂU LỆNH, TỰ MƯỢN KẾT NỐI ==========
+
+    <T> List<T> query(String sql, Binder binder, RowMapper<T> mapper) {
+        return inConnection(con -> query(con, sql, binder, mapper));
+    }
+
+    // Dòng đầu tiên (nếu có)
+    <T> Optional<T> queryFirst(String sql, Binder binder, RowMapper<T> mapper) {
+        return inConnection(con -> {
+            try (PreparedStatement st = prepare(con, sql)) {
+                binder.bind(st);
+                st.setMaxRows(1);
+                try (ResultSet rs = st.executeQuery()) {
+                    return rs.next() ? Optional.of(mapper.map(rs)) : Optional.<T>empty();
+                }
+            } catch (SQLException e) {
+                throw translate(sql, e);
+            }
+        });
+    }
+
+    // Đọc dạng luồng: statement chỉ đọc tiến, driver lấy dần fetchSize dòng mỗi lượt
+    void queryEach(String sql, Binder binder, RowHandler handler) {
+        inConnection(con -> {
+            queryEach(con, sql, binder, handler);
+            return null;
+        });
+    }
+
+    // Trả về số dòng bị ảnh hưởng
+    int update(String sql, Binder binder) {
+        return inConnection(con -> update(con, sql, binder));
+    }
+
+    // INSERT một dòng; trả về id tự sinh, 0 nếu không có dòng nào được thêm
+    int insert(String sql, Binder binder) {
+        return inConnection(con -> {
+            try (PreparedStatement st = prepare(con, sql, Statement.RETURN_GENERATED_KEYS)) {
+                binder.bind(st);
+                if (st.executeUpdate() == 0) {
+                    return 0;
+                }
+                try (ResultSet keys = st.getGeneratedKeys()) {
+                    return keys.next() ? keys.getInt(1) : 0;
+                }
+            } catch (SQLException e) {
+                throw translate(sql, e);
+            }
+        });
+    }
+
+    // ========== NHIỀU CÂU LỆNH TRÊN MỘT KẾT NỐI ==========
+
+    <T> T inConnection(ConnectionWork<T> work) {
+        try (Connection con = Database.getConnection()) {
+            return work.run(con);
+        } catch (SQLException e) {
+            throw translate(null, e);
+        }
+    }
+
+    // Commit khi work chạy xong, rollback nếu có lỗi (kể cả DataAccessException từ các câu lệnh bên trong).
+    // Pool tự đặt lại autoCommit khi nhận kết nối về
+    <T> T inTransaction(ConnectionWork<T> work) {
+        return inConnection(con -> {
+            con.setAutoCommit(false);
+            try {
+                T ketQua = work.run(con);
+                con.commit();
+                return ketQua;
+            } catch (SQLException | RuntimeException e) {
+                rollback(con, e);
+                throw e;
+            }
+        });
+    }
+
+    <T> List<T> query(Connection con, String sql, Binder binder, RowMapper<T> mapper) {
+        List<T> ketQua = new ArrayList<>();
+        try (PreparedStatement st = prepare(con, sql)) {
+            binder.bind(st);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    ketQua.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw translate(sql, e);
+        }
+        return ketQua;
+    }
+
+    // Xử lý từng dòng ngay khi đọc, không gom kết quả (dòng JOIN cần ghép lại, đọc dạng luồng...)
+    void queryEach(Connection con, String sql, Binder binder, RowHandler handler) {
+        // Mặc định của JDBC đã là TYPE_FORWARD_ONLY / CONCUR_READ_ONLY; prepare dùng được cache statement
+        try (PreparedStatement st = prepare(con, sql)) {
+            binder.bind(st);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        } catch (SQLException e) {
+            throw translate(sql, e);
+        } catch (IOException e) {
+            throw new DataAccessException("Lỗi khi đọc dữ liệu dạng luồng", sql, e);
+        }
+    }
+
+    int update(Connection con, String sql, Binder binder) {
+        try (PreparedStatement st = prepare(con, sql)) {
+            binder.bind(st);
+            return st.executeUpdate();
+        } catch (SQLException e) {
+            throw translate(sql, e);
+        }
+    }
+
+    // Cho các câu lệnh đặc biệt (batch, nhiều kết quả); người gọi đóng bằng try-with-resources
+    PreparedStatement prepare(Connection con, String sql) throws SQLException {
+        return configure(con.prepareStatement(sql));
+    }
+
+    PreparedStatement prepare(Connection con, String sql, int autoGeneratedKeys) throws SQLException {
+        return configure(con.prepareStatement(sql, autoGeneratedKeys));
+    }
+
+    // ========== NỘI BỘ ==========
+
+    // Statement lấy từ cache vẫn giữ cấu hình lần trước nên lần nào cũng đặt lại
+    private PreparedStatement configure(PreparedStatement st) throws SQLException {
+        try {
+            st.setQueryTimeout(queryTimeoutSeconds == FROM_CONFIG ? Database.getQueryTimeoutSeconds() : queryTimeoutSeconds);
+            st.setFetchSize(fetchSize == FROM_CONFIG ? Database.getFetchSize() : fetchSize);
+            st.setMaxRows(0);
+            return st;
+        } catch (SQLException e) {
+            st.close();
+            throw e;
+        }
+    }
+
+    private static void rollback(Connection con, Exception cause) {
+        try {
+            con.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    // Phân loại theo kiểu SQLException của JDBC 4 rồi theo SQLState (driver cũ chỉ ném SQLException):
+    // 23 = vi phạm ràng buộc, 08 = lỗi kết nối, 40 = transaction bị hủy (deadlock), HYT00/HYT01 = hết thời gian
+    static DataAccessException translate(String sql, SQLException e) {
+        String state = e.getSQLState() == null ? "" : e.getSQLState();
+        if (e instanceof SQLTimeoutException || state.startsWith("HYT")) {
+            return new DataAccessTimeoutException("Hết thời gian thực thi: " + e.getMessage(), sql, e);
+        }
+        if (e instanceof SQLIntegrityConstraintViolationException || state.startsWith("23")) {
+            return new DataIntegrityException("Vi phạm ràng buộc dữ liệu: " + e.getMessage(), sql, e);
+        }
+        // 1205 = SQL Server chọn câu lệnh này làm nạn nhân deadlock
+        if (e instanceof SQLTransientException || state.startsWith("08") || state.startsWith("40")
+                || e.getErrorCode() == 1205) {
+            return new TransientDataAccessException("Lỗi tạm thời: " + e.getMessage(), sql, e);
+        }
+        return new DataAccessException("Lỗi truy cập CSDL: " + e.getMessage(), sql, e);
+    }
+}
@@ -1,276 +1,226 @@
 package org.example.dao.jdbc;
 
-import org.example.config.Database;
 import org.example.dao.PostDao;
 import org.example.model.Post;
+import org.example.model.PostSummary;
 import org.example.model.Comment;
 
-import java.sql.*;
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class JdbcPostDao implements PostDao {
-    
+    // Số dòng driver lấy về mỗi lượt khi đọc dạng luồng
+    private static final int STREAM_FETCH_SIZE = 500;
+    // Thứ tự cột khớp với mapPost / mapSummary
+    private static final String POST_COLUMNS = "id, title, content, author_id, created_at, updated_at";
+    private static final String SUMMARY_COLUMNS = "id, title, author_id, created_at, comment_count, excerpt";
+
+    private final JdbcExecutor jdbc = new JdbcExecutor();
+
     @Override
     public Post insert(Post post) {
-        int ketQua = 0;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "INSERT INTO posts(title, content, author_id) VALUES(?, ?, ?)";
-            PreparedStatement st = con.prepareStatement(sql);
+        String sql = "INSERT INTO posts(title, content, author_id) VALUES(?, ?, ?)";
+        int id = jdbc.insert(sql, st -> {
             st.setString(1, post.getTitle());
             st.setString(2, post.getContent());
             st.setInt(3, post.getAuthorId());
-            
-            // Bước 3: thực thi câu lệnh SQL
-            ketQua = st.executeUpdate();
-            
-            // Bước 4:
-            System.out.println("Bạn đã thực thi: " + sql);
-            System.out.println("Có " + ketQua + " dòng bị thay đổi!");
-            
-            // Bước 5:
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
+        });
+        if (id > 0) {
+            post.setId(id);
         }
-        
         return post;
     }
-    
+
     @Override
     public boolean update(Post post) {
-        int ketQua = 0;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "UPDATE posts SET title = ?, content = ?, updated_at = SYSUTCDATETIME() WHERE id = ?";
-            PreparedStatement st = con.prepareStatement(sql);
+        String sql = "UPDATE posts SET title = ?, content = ?, updated_at = SYSUTCDATETIME() WHERE id = ?";
+        return jdbc.update(sql, st -> {
             st.setString(1, post.getTitle());
             st.setString(2, post.getContent());
             st.setInt(3, post.getId());
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ketQua = st.executeUpdate();
-            
-            // Bước 4:
-            System.out.println("Bạn đã thực thi: " + sql);
-            System.out.println("Có " + ketQua + " dòng bị thay đổi!");
-            
-            // Bước 5:
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return ketQua > 0;
+        }) > 0;
     }
-    
+
     @Override
     public boolean deleteById(int id) {
-        int ketQua = 0;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "DELETE FROM posts WHERE id = ?";
-            PreparedStatement st = con.prepareStatement(sql);
-            st.setInt(1, id);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ketQua = st.executeUpdate();
-            
-            // Bước 4:
-            System.out.println("Bạn đã thực thi: " + sql);
-            System.out.println("Có " + ketQua + " dòng bị thay đổi!");
-            
-            // Bước 5:
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return ketQua > 0;
+        return jdbc.update("DELETE FROM posts WHERE id = ?", st -> st.setInt(1, id)) > 0;
     }
-    
+
     @Override
     public Optional<Post> findById(int id) {
-        Post ketQua = null;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "SELECT * FROM posts WHERE id = ?";
-            PreparedStatement st = con.prepareStatement(sql);
-            st.setInt(1, id);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ResultSet rs = st.executeQuery();
-            
-            // Bước 4: xử lý kết quả
-            while (rs.next()) {
-                int postId = rs.getInt("id");
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                int authorId = rs.getInt("author_id");
-                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                LocalDateTime updatedAt = rs.getTimestamp("updated_at") != null ? 
-                    rs.getTimestamp("updated_at").toLocalDateTime() : null;
-                
-                ketQua = new Post(postId, title, content, authorId, createdAt, updatedAt);
-            }
-            
-            // Bước 5: đóng kết nối
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return ketQua != null ? Optional.of(ketQua) : Optional.empty();
+        String sql = "SELECT " + POST_COLUMNS + " FROM posts WHERE id = ?";
+        return jdbc.queryFirst(sql, st -> st.setInt(1, id), JdbcPostDao::mapPost);
     }
 
     @Override
     public List<Post> findAll() {
-        List<Post> ketQua = new ArrayList<>();
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement
-            String sql = "SELECT * FROM posts ORDER BY created_at DESC";
-            PreparedStatement st = con.prepareStatement(sql);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ResultSet rs = st.executeQuery();
-            
-            // Bước 4: xử lý kết quả
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                int authorId = rs.getInt("author_id");
-                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                LocalDateTime updatedAt = rs.getTimestamp("updated_at") != null ? 
-                    rs.getTimestamp("updated_at").toLocalDateTime() : null;
-                
-                Post post = new Post(id, title, content, authorId, createdAt, updatedAt);
-                ketQua.add(post);
+        String sql = "SELECT " + POST_COLUMNS + " FROM posts ORDER BY created_at DESC";
+        return jdbc.query(sql, JdbcExecutor.Binder.NONE, JdbcPostDao::mapPost);
+    }
+
+    @Override
+    public void forEachPost(Consumer<Post> consumer) {
+        forEachPostContent((post, content) -> {
+            StringBuilder sb = new StringBuilder();
+            if (content != null) {
+                char[] buffer = new char[4096];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    sb.append(buffer, 0, n);
+                }
+            }
+            post.setContent(sb.toString());
+            consumer.accept(post);
+        });
+    }
+
+    @Override
+    public void forEachPostContent(PostContentHandler handler) {
+        // Đọc dạng luồng, không giữ lại dòng đã xử lý; cột content để cuối cùng
+        // để có thể đọc bằng character stream
+        String sql = "SELECT id, title, author_id, created_at, updated_at, content FROM posts ORDER BY id";
+        jdbc.withFetchSize(STREAM_FETCH_SIZE).queryEach(sql, JdbcExecutor.Binder.NONE, rs -> {
+            Post post = new Post(rs.getInt(1), rs.getString(2), null, rs.getInt(3),
+                    rs.getTimestamp(4).toLocalDateTime(), toLocalDateTime(rs.getTimestamp(5)));
+            try (Reader content = rs.getCharacterStream(6)) {
+                handler.handle(post, content);
             }
-            
-            // Bước 5: đóng kết nối
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
+        });
+    }
+
+    // Điều kiện seek theo (created_at, id) dùng được index IX_posts_created_at_id
+    // nên trang sâu vẫn nhanh như trang đầu
+    @Override
+    public List<Post> findPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return jdbc.query(pageSql(POST_COLUMNS, afterCreatedAt), pageBinder(afterCreatedAt, afterId, limit),
+                JdbcPostDao::mapPost);
+    }
+
+    // Chỉ chọn các cột tóm tắt
+    @Override
+    public List<PostSummary> findSummaryPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return jdbc.query(pageSql(SUMMARY_COLUMNS, afterCreatedAt), pageBinder(afterCreatedAt, afterId, limit),
+                JdbcPostDao::mapSummary);
+    }
+
+    private static String pageSql(String columns, LocalDateTime afterCreatedAt) {
+        if (afterCreatedAt == null) {
+            return "SELECT TOP (?) " + columns + " FROM posts ORDER BY created_at DESC, id DESC";
         }
-        
-        return ketQua;
+        return "SELECT TOP (?) " + columns + " FROM posts " +
+                "WHERE created_at < ? OR (created_at = ? AND id < ?) " +
+                "ORDER BY created_at DESC, id DESC";
+    }
+
+    private static JdbcExecutor.Binder pageBinder(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return st -> {
+            st.setInt(1, limit);
+            if (afterCreatedAt != null) {
+                Timestamp after = Timestamp.valueOf(afterCreatedAt);
+                st.setTimestamp(2, after);
+                st.setTimestamp(3, after);
+                st.setInt(4, afterId);
+            }
+        };
+    }
+
+    // Tìm theo khóa chính, mỗi nhóm id một câu IN trên cùng một kết nối
+    @Override
+    public List<PostSummary> findSummariesByIds(Collection<Integer> ids) {
+        return queryByIds(SUMMARY_COLUMNS, ids, JdbcPostDao::mapSummary);
     }
 
     @Override
     public Optional<Post> findByIdWithComments(int id) {
-        Post ketQua = null;
-        try {
-            // Bước 1: tạo kết nối đến CSDL
-            Connection con = Database.getConnection();
-            
-            // Bước 2: tạo ra đối tượng statement với JOIN
-            String sql = "SELECT p.id, p.title, p.content, p.author_id, p.created_at, p.updated_at, " +
-                        "c.id as comment_id, c.author_name, c.content as comment_content, c.created_at as comment_created_at " +
-                        "FROM posts p " +
-                        "LEFT JOIN comments c ON p.id = c.post_id " +
-                        "WHERE p.id = ? " +
-                        "ORDER BY c.created_at ASC";
-            PreparedStatement st = con.prepareStatement(sql);
-            st.setInt(1, id);
-            
-            // Bước 3: thực thi câu lệnh SQL
-            System.out.println(sql);
-            ResultSet rs = st.executeQuery();
-            
-            // Bước 4: xử lý kết quả
+        // p.* theo thứ tự POST_COLUMNS (cột 1-6), rồi các cột của bình luận (cột 7-10)
+        String sql = "SELECT p.id, p.title, p.content, p.author_id, p.created_at, p.updated_at, " +
+                    "c.id, c.author_name, c.content, c.created_at " +
+                    "FROM posts p " +
+                    "LEFT JOIN comments c ON p.id = c.post_id " +
+                    "WHERE p.id = ? " +
+                    "ORDER BY c.created_at ASC";
+        return jdbc.inConnection(con -> {
+            Post[] post = new Post[1];
             List<Comment> comments = new ArrayList<>();
-            while (rs.next()) {
+            jdbc.queryEach(con, sql, st -> st.setInt(1, id), rs -> {
                 // Tạo Post chỉ một lần
-                if (ketQua == null) {
-                    int postId = rs.getInt("id");
-                    String title = rs.getString("title");
-                    String content = rs.getString("content");
-                    int authorId = rs.getInt("author_id");
-                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                    LocalDateTime updatedAt = rs.getTimestamp("updated_at") != null ? 
-                        rs.getTimestamp("updated_at").toLocalDateTime() : null;
-                    
-                    ketQua = new Post(postId, title, content, authorId, createdAt, updatedAt);
+                if (post[0] == null) {
+                    post[0] = mapPost(rs);
                 }
-                
-                // Thêm Comment nếu có
-                int commentId = rs.getInt("comment_id");
-                if (!rs.wasNull()) { // Kiểm tra comment_id không null
-                    String authorName = rs.getString("author_name");
-                    String commentContent = rs.getString("comment_content");
-                    LocalDateTime commentCreatedAt = rs.getTimestamp("comment_created_at").toLocalDateTime();
-                    
-                    Comment comment = new Comment(commentId, id, authorName, commentContent, commentCreatedAt);
-                    comments.add(comment);
+                // Thêm Comment nếu có (LEFT JOIN trả về c.id null khi bài chưa có bình luận)
+                int commentId = rs.getInt(7);
+                if (!rs.wasNull()) {
+                    comments.add(new Comment(commentId, id, rs.getString(8), rs.getString(9),
+                            rs.getTimestamp(10).toLocalDateTime()));
                 }
+            });
+            if (post[0] == null) {
+                return Optional.<Post>empty();
             }
-            
-            // Gán comments vào post
-            if (ketQua != null) {
-                ketQua.setComments(comments);
-            }
-            
-            // Bước 5: đóng kết nối
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        return ketQua != null ? Optional.of(ketQua) : Optional.empty();
+            post[0].setComments(comments);
+            return Optional.of(post[0]);
+        });
     }
 
     @Override
-    public List<Post> searchByKeyword(String keyword) {
-        List<Post> ketQua = new ArrayList<>();
-        try {
-            Connection con = Database.getConnection();
-            String sql = "SELECT * FROM posts WHERE title LIKE ? OR content LIKE ? ORDER BY created_at DESC";
-            PreparedStatement st = con.prepareStatement(sql);
-            String pattern = "%" + (keyword == null ? "" : keyword.trim()) + "%";
-            st.setString(1, pattern);
-            st.setString(2, pattern);
-            System.out.println(sql);
-            ResultSet rs = st.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String title = rs.getString("title");
-                String content = rs.getString("content");
-                int authorId = rs.getInt("author_id");
-                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                LocalDateTime updatedAt = rs.getTimestamp("updated_at") != null ?
-                    rs.getTimestamp("updated_at").toLocalDateTime() : null;
-                Post post = new Post(id, title, content, authorId, createdAt, updatedAt);
-                ketQua.add(post);
-            }
-            Database.closeConnection(con);
-        } catch (SQLException e) {
-            e.printStackTrace();
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        return new HashSet<>(queryByIds("id", ids, rs -> rs.getInt(1)));
+    }
+
+    @Override
+    public List<Post> findByIds(Collection<Integer> ids) {
+        return queryByIds(POST_COLUMNS, ids, JdbcPostDao::mapPost);
+    }
+
+    // SELECT columns ... WHERE id IN (...) cho từng nhóm id, gộp kết quả
+    private <T> List<T> queryByIds(String columns, Collection<Integer> ids, JdbcExecutor.RowMapper<T> mapper) {
+        List<T> ketQua = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return ketQua;
         }
-        return ketQua;
+        return jdbc.inConnection(con -> {
+            for (List<Integer> chunk : InClause.chunks(ids)) {
+                int padded = InClause.paddedSize(chunk.size());
+                String sql = "SELECT " + columns + " FROM posts WHERE id IN (" + InClause.placeholders(padded) + ")";
+                ketQua.addAll(jdbc.query(con, sql, st -> InClause.bind(st, 1, chunk, padded), mapper));
+            }
+            return ketQua;
+        });
     }
-}
 
+    // Đọc theo thứ tự cột của POST_COLUMNS
+    private static Post mapPost(ResultSet rs) throws SQLException {
+        return new Post(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getTimestamp(5).toLocalDateTime(),
+                toLocalDateTime(rs.getTimestamp(6)));
+    }
+
+    // Đọc theo thứ tự cột của SUMMARY_COLUMNS
+    private static PostSummary mapSummary(ResultSet rs) throws SQLException {
+        return new PostSummary(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getInt(3),
+                rs.getTimestamp(4).toLocalDateTime(),
+                rs.getInt(5),
+                rs.getString(6));
+    }
 
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
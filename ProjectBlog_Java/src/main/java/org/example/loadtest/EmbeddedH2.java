@@ -0,0 +1,84 @@
+package org.example.loadtest;
+
+import org.example.config.Database;
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+// CSDL H2 trong bộ nhớ ở chế độ MSSQLServer, dựng cùng schema với sql/blog_schema.sql
+// để chạy JdbcBlogService mà không cần SQL Server thật.
+public final class EmbeddedH2 {
+    private static final String[] SCHEMA = {
+        // H2 không có SYSUTCDATETIME() của SQL Server
+        "CREATE ALIAS IF NOT EXISTS SYSUTCDATETIME FOR \"org.example.loadtest.EmbeddedH2.utcNow\"",
+        "CREATE TABLE users (" +
+            " id INT IDENTITY(1,1) PRIMARY KEY," +
+            " username NVARCHAR(100) NOT NULL UNIQUE," +
+            " password_hash VARCHAR(60) NOT NULL," +
+            " display_name NVARCHAR(150) NOT NULL," +
+            " created_at DATETIME2(3) NOT NULL DEFAULT SYSUTCDATETIME())",
+        "CREATE TABLE posts (" +
+            " id INT IDENTITY(1,1) PRIMARY KEY," +
+            " title NVARCHAR(200) NOT NULL," +
+            " content NVARCHAR(MAX) NOT NULL," +
+            " author_id INT NOT NULL REFERENCES users(id)," +
+            " created_at DATETIME2(3) NOT NULL DEFAULT SYSUTCDATETIME()," +
+            " updated_at DATETIME2(3) NULL," +
+            " comment_count INT NOT NULL DEFAULT 0," +
+            " excerpt NVARCHAR(160) GENERATED ALWAYS AS (LEFT(content, 160)))",
+        "CREATE INDEX IX_posts_created_at_id ON posts(created_at DESC, id DESC)",
+        "CREATE TABLE comments (" +
+            " id INT IDENTITY(1,1) PRIMARY KEY," +
+            " post_id INT NOT NULL REFERENCES posts(id) ON DELETE CASCADE," +
+            " author_name NVARCHAR(150) NOT NULL," +
+            " content NVARCHAR(1000) NOT NULL," +
+            " created_at DATETIME2(3) NOT NULL DEFAULT SYSUTCDATETIME())",
+        "CREATE INDEX IX_comments_post_id ON comments(post_id)",
+        // Thay cho trigger TR_comments_count (H2 không chạy được trigger T-SQL)
+        "CREATE TRIGGER TR_comments_count_ins AFTER INSERT ON comments FOR EACH ROW CALL \"org.example.loadtest.EmbeddedH2$CommentCountTrigger\"",
+        "CREATE TRIGGER TR_comments_count_del AFTER DELETE ON comments FOR EACH ROW CALL \"org.example.loadtest.EmbeddedH2$CommentCountTrigger\"",
+    };
+
+    private EmbeddedH2() {}
+
+    // Trỏ Database sang một CSDL H2 mới (tên riêng) và tạo bảng; trả về id của tài khoản tác giả
+    public static int start(String name) throws SQLException {
+        Database.configure("jdbc:h2:mem:" + name + ";MODE=MSSQLServer;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "sa", "");
+        try (Connection con = Database.getConnection(); Statement st = con.createStatement()) {
+            for (String sql : SCHEMA) {
+                st.execute(sql);
+            }
+            st.executeUpdate("INSERT INTO users(username, password_hash, display_name) VALUES('loadtest', '-', 'Load Test')",
+                    Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet keys = st.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Không lấy được id của tài khoản tác giả");
+                }
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    public static Timestamp utcNow() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+
+    public static final class CommentCountTrigger implements Trigger {
+        @Override
+        public void fire(Connection con, Object[] oldRow, Object[] newRow) throws SQLException {
+            Object[] row = newRow != null ? newRow : oldRow;
+            try (PreparedStatement st = con.prepareStatement(
+                    "UPDATE posts SET comment_count = comment_count + ? WHERE id = ?")) {
+                st.setInt(1, newRow != null ? 1 : -1);
+                st.setInt(2, ((Number) row[1]).intValue());
+                st.executeUpdate();
+            }
+        }
+    }
+}
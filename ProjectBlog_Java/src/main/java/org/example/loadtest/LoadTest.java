@@ -0,0 +1,259 @@
+package org.example.loadtest;
+
+import org.example.config.Database;
+import org.example.dao.jdbc.JdbcCommentDao;
+import org.example.dao.jdbc.JdbcPostDao;
+import org.example.loadtest.LoadTestConfig.Operation;
+import org.example.metrics.LatencyHistogram;
+import org.example.metrics.SqlMetrics;
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.service.JdbcBlogService;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Công cụ tải thử JdbcBlogService trên H2 nhúng (chế độ SQL Server), chạy offline.
+// Mỗi người dùng ảo là một virtual thread lặp liên tục (closed-loop, không có thời gian nghỉ):
+// chọn thao tác theo tỉ lệ --mix, gọi service và ghi nhận độ trễ.
+// Người dùng được khởi động rải đều trong --ramp-up giây; chỉ số liệu trong --duration giây
+// sau giai đoạn ramp-up được tính vào báo cáo.
+public class LoadTest {
+    private static final String[] WORDS = {
+        "java", "lập", "trình", "cơ", "sở", "dữ", "liệu", "hiệu", "năng", "bộ", "nhớ",
+        "luồng", "máy", "chủ", "truy", "vấn", "chỉ", "mục", "giao", "dịch", "kết", "nối",
+        "sql", "server", "jdbc", "cache", "blog", "bài", "viết", "bình", "luận", "việt", "nam",
+        "kiểm", "thử", "tải", "độ", "trễ", "thông", "lượng", "phân", "trang", "tìm", "kiếm"
+    };
+    private static final int PAGE_SIZE = 10;
+
+    private final LoadTestConfig config;
+    private final JdbcBlogService service;
+    private final int authorId;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicInteger maxPostId;
+
+    LoadTest(LoadTestConfig config, JdbcBlogService service, int authorId) {
+        this.config = config;
+        this.service = service;
+        this.authorId = authorId;
+        this.maxPostId = new AtomicInteger(config.seedPosts);
+
+        List<Operation> ops = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<Operation, Integer> e : config.mix.entrySet()) {
+            if (e.getValue() > 0) {
+                total += e.getValue();
+                ops.add(e.getKey());
+                weights.add(total);
+                stats.put(e.getKey(), new OperationStats());
+            }
+        }
+        this.operations = ops.toArray(new Operation[0]);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static void main(String[] args) throws SQLException {
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(LoadTestConfig.usage());
+            return;
+        }
+        System.out.println("Cấu hình: " + config);
+
+        SqlMetrics.getInstance().setSlowQueryThresholdMillis(config.slowQueryMillis);
+        Database.configurePool(Math.min(2, config.poolSize), config.poolSize, 30_000L, 600_000L, 0L);
+        int authorId = EmbeddedH2.start("loadtest");
+
+        long seedStart = System.nanoTime();
+        seed(config, authorId);
+        JdbcBlogService service = JdbcBlogService.create();
+        System.out.printf("Đã tạo %d bài viết, %d bình luận trong %.1f s%n", config.seedPosts,
+                config.seedPosts * config.seedCommentsPerPost, (System.nanoTime() - seedStart) / 1e9);
+
+        // Chỉ giữ số liệu SQL của giai đoạn chạy tải
+        SqlMetrics.getInstance().reset();
+        try {
+            new LoadTest(config, service, authorId).run();
+        } finally {
+            Database.shutdown();
+        }
+    }
+
+    // ========== TẠO DỮ LIỆU ==========
+
+    private static void seed(LoadTestConfig config, int authorId) {
+        Random random = new Random(42);
+        JdbcPostDao postDao = new JdbcPostDao();
+        JdbcCommentDao commentDao = new JdbcCommentDao();
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 1; i <= config.seedPosts; i++) {
+            Post post = postDao.insert(new Post("Bài viết " + i + " " + words(random, 4),
+                    words(random, 40 + random.nextInt(80)), authorId, LocalDateTime.now(), null));
+            for (int j = 0; j < config.seedCommentsPerPost; j++) {
+                comments.add(new Comment(0, post.getId(), "khach" + j, words(random, 12), LocalDateTime.now()));
+            }
+            if (comments.size() >= 5000) {
+                commentDao.insertAll(comments);
+                comments.clear();
+            }
+        }
+        commentDao.insertAll(comments);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    // ========== CHẠY TẢI ==========
+
+    void run() {
+        long start = System.nanoTime();
+        long rampUpNanos = TimeUnit.SECONDS.toNanos(config.rampUpSeconds);
+        long measureFrom = start + rampUpNanos;
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+
+        System.out.printf("Chạy %d người dùng ảo: ramp-up %d s, đo %d s...%n",
+                config.users, config.rampUpSeconds, config.durationSeconds);
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("vu-", 1).factory())) {
+            for (int i = 0; i < config.users; i++) {
+                long startAt = start + rampUpNanos * i / config.users;
+                int user = i + 1;
+                executor.submit(() -> virtualUser(user, startAt, measureFrom, measureUntil));
+            }
+        }
+        printReport();
+    }
+
+    private void virtualUser(int user, long startAt, long measureFrom, long measureUntil) {
+        long delay = startAt - System.nanoTime();
+        if (delay > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Operation op = pick(random);
+            long t0 = System.nanoTime();
+            if (t0 >= measureUntil) {
+                return;
+            }
+            boolean ok;
+            try {
+                ok = execute(op, user, random);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+            long elapsed = System.nanoTime() - t0;
+            if (t0 >= measureFrom) {
+                OperationStats s = stats.get(op);
+                s.latency.record(elapsed);
+                if (!ok) {
+                    s.errors.increment();
+                }
+            }
+        }
+    }
+
+    private Operation pick(ThreadLocalRandom random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    // Trả về false khi thao tác không thành công; lỗi CSDL (DataAccessException) được ném ra
+    // và virtualUser tính là lỗi
+    private boolean execute(Operation op, int user, ThreadLocalRandom random) {
+        switch (op) {
+            case READ:
+                return service.getPostById(1 + random.nextInt(maxPostId.get())).isPresent();
+            case LIST:
+                return !service.getPostSummaryPage(null, 0, PAGE_SIZE).isEmpty();
+            case COMMENT:
+                return service.addComment(new Comment(0, 1 + random.nextInt(maxPostId.get()),
+                        "vu-" + user, words(random, 10), LocalDateTime.now()));
+            case POST:
+                Post post = new Post("Bài mới của vu-" + user + " " + words(random, 3),
+                        words(random, 60), authorId, LocalDateTime.now(), null);
+                service.addPost(post);
+                if (post.getId() <= 0) {
+                    return false;
+                }
+                maxPostId.accumulateAndGet(post.getId(), Math::max);
+                return true;
+            case SEARCH:
+                service.searchPostSummaries(WORDS[random.nextInt(WORDS.length)]);
+                return true;
+            default:
+                throw new IllegalStateException("Thao tác chưa hỗ trợ: " + op);
+        }
+    }
+
+    // ========== BÁO CÁO ==========
+
+    private void printReport() {
+        double seconds = config.durationSeconds;
+        System.out.println("\n--- KẾT QUẢ (độ trễ tính bằng ms) ---");
+        System.out.printf("%-8s %9s %6s %9s %8s %8s %8s %8s %8s %8s%n",
+                "Thao tác", "Số lượt", "Lỗi", "ops/s", "mean", "p50", "p90", "p99", "p99.9", "max");
+        LatencyHistogram total = new LatencyHistogram();
+        long totalErrors = 0;
+        for (Map.Entry<Operation, OperationStats> e : stats.entrySet()) {
+            OperationStats s = e.getValue();
+            printRow(e.getKey().getKey(), s.latency, s.errors.sum(), seconds);
+            total.add(s.latency);
+            totalErrors += s.errors.sum();
+        }
+        printRow("TỔNG", total, totalErrors, seconds);
+
+        System.out.println("\n--- THỐNG KÊ SQL ---");
+        SqlMetrics.getInstance().printReport(System.out);
+        System.out.println("\n--- POOL KẾT NỐI ---");
+        System.out.println(Database.getPoolStats());
+        System.out.println("\n--- CACHE BÀI VIẾT ---");
+        System.out.println(service.getPostCacheStats());
+    }
+
+    private static void printRow(String name, LatencyHistogram h, long errors, double seconds) {
+        System.out.printf("%-8s %9d %6d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n",
+                name, h.getCount(), errors, h.getCount() / seconds, h.getMean() / 1e6,
+                h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+                h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6, h.getMax() / 1e6);
+    }
+
+    private static final class OperationStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+    }
+}
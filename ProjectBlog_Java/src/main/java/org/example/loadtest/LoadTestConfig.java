@@ -0,0 +1,122 @@
+package org.example.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Tham số chạy tải thử, đọc từ dòng lệnh dạng --ten=giatri
+public final class LoadTestConfig {
+
+    public enum Operation {
+        READ("read"),        // getPostById
+        LIST("list"),        // getPostSummaryPage (trang đầu)
+        COMMENT("comment"),  // addComment
+        POST("post"),        // addPost
+        SEARCH("search");    // searchPostSummaries
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static Operation of(String key) {
+            for (Operation op : values()) {
+                if (op.key.equalsIgnoreCase(key.trim())) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Thao tác không hợp lệ: " + key);
+        }
+    }
+
+    int users = 50;
+    int durationSeconds = 30;
+    int rampUpSeconds = 5;
+    int seedPosts = 1000;
+    int seedCommentsPerPost = 3;
+    int poolSize = 10;
+    long slowQueryMillis = 0;
+    final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+    private LoadTestConfig() {
+        mix.put(Operation.READ, 60);
+        mix.put(Operation.LIST, 15);
+        mix.put(Operation.COMMENT, 15);
+        mix.put(Operation.POST, 2);
+        mix.put(Operation.SEARCH, 8);
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Tham số không hợp lệ: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "users": config.users = positive(name, value); break;
+                case "duration": config.durationSeconds = positive(name, value); break;
+                case "ramp-up": config.rampUpSeconds = nonNegative(name, value); break;
+                case "posts": config.seedPosts = positive(name, value); break;
+                case "comments-per-post": config.seedCommentsPerPost = nonNegative(name, value); break;
+                case "pool": config.poolSize = positive(name, value); break;
+                case "slow-ms": config.slowQueryMillis = Long.parseLong(value); break;
+                case "mix": config.parseMix(value); break;
+                default: throw new IllegalArgumentException("Tham số không hợp lệ: " + arg);
+            }
+        }
+        return config;
+    }
+
+    // Ví dụ: read:70,comment:20,search:10 (thao tác không nêu có trọng số 0)
+    private void parseMix(String value) {
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Tỉ lệ không hợp lệ: " + part);
+            }
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Tỉ lệ không được âm: " + part);
+            }
+            mix.put(Operation.of(kv[0]), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Tổng tỉ lệ phải lớn hơn 0");
+        }
+    }
+
+    private static int positive(String name, String value) {
+        int n = Integer.parseInt(value);
+        if (n <= 0) {
+            throw new IllegalArgumentException(name + " phải lớn hơn 0");
+        }
+        return n;
+    }
+
+    private static int nonNegative(String name, String value) {
+        int n = Integer.parseInt(value);
+        if (n < 0) {
+            throw new IllegalArgumentException(name + " không được âm");
+        }
+        return n;
+    }
+
+    static String usage() {
+        return "Cách dùng: LoadTest [--users=50] [--duration=30] [--ramp-up=5] [--posts=1000]\n"
+                + "                [--comments-per-post=3] [--pool=10] [--slow-ms=0]\n"
+                + "                [--mix=read:60,list:15,comment:15,post:2,search:8]";
+    }
+
+    @Override
+    public String toString() {
+        return "users=" + users + ", duration=" + durationSeconds + "s, rampUp=" + rampUpSeconds
+                + "s, posts=" + seedPosts + ", pool=" + poolSize + ", mix=" + mix;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Số liệu các lần ghi snapshot (checkpoint) của BlogManager:
+//   duration : toàn bộ thời gian một checkpoint (chụp + ghi file + fsync + đổi tên)
+//   pause    : thời gian các luồng ghi phải chờ để chụp trạng thái (chỉ là đổi một tham chiếu)
+//   preserved: số bản ghi phải giữ lại bản cũ vì bị sửa/xóa trong lúc đang ghi snapshot
+public final class CheckpointMetrics {
+    private final LatencyHistogram duration = new LatencyHistogram();
+    private final LatencyHistogram pause = new LatencyHistogram();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder preserved = new LongAdder();
+    private final AtomicLong lastBytes = new AtomicLong();
+    private final AtomicLong lastDurationNanos = new AtomicLong();
+    private final AtomicLong lastCompletedMillis = new AtomicLong();
+
+    public void record(long durationNanos, long pauseNanos, long bytes, long preservedRecords) {
+        duration.record(durationNanos);
+        pause.record(pauseNanos);
+        preserved.add(preservedRecords);
+        lastBytes.set(bytes);
+        lastDurationNanos.set(durationNanos);
+        lastCompletedMillis.set(System.currentTimeMillis());
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    public long getCount() { return duration.getCount(); }
+    public long getFailures() { return failures.sum(); }
+    public long getPreservedRecords() { return preserved.sum(); }
+    public long getLastBytes() { return lastBytes.get(); }
+    public long getLastDurationNanos() { return lastDurationNanos.get(); }
+    // 0 nếu chưa có checkpoint nào hoàn tất
+    public long getLastCompletedMillis() { return lastCompletedMillis.get(); }
+    public long getP50DurationNanos() { return duration.getValueAtPercentile(50); }
+    public long getP99DurationNanos() { return duration.getValueAtPercentile(99); }
+    public long getMaxDurationNanos() { return duration.getMax(); }
+    public long getMaxPauseNanos() { return pause.getMax(); }
+
+    @Override
+    public String toString() {
+        return String.format("Checkpoint: %d lần (lỗi %d), lần cuối %.1f ms / %d byte, p50 %.1f ms, p99 %.1f ms, "
+                        + "max %.1f ms, dừng ghi tối đa %.3f ms, giữ bản cũ %d bản ghi",
+                getCount(), getFailures(), millis(getLastDurationNanos()), getLastBytes(),
+                millis(getP50DurationNanos()), millis(getP99DurationNanos()), millis(getMaxDurationNanos()),
+                millis(getMaxPauseNanos()), getPreservedRecords());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
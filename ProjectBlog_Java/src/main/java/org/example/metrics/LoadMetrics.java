@@ -0,0 +1,49 @@
+package org.example.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+// Số liệu lần khởi động (loadFromFile) gần nhất của BlogManager: thời gian đọc/giải mã snapshot,
+// dựng chỉ mục, phát lại WAL và tổng cộng; số đoạn snapshot và số luồng đã dùng
+public final class LoadMetrics {
+    private volatile long decodeNanos;
+    private volatile long indexNanos;
+    private volatile long replayNanos;
+    private volatile long totalNanos;
+    private volatile int segments;
+    private volatile int threads;
+    private volatile int records;
+    private volatile int replayedRecords;
+
+    public void record(long decodeNanos, long indexNanos, long replayNanos, long totalNanos,
+                       int segments, int threads, int records, int replayedRecords) {
+        this.decodeNanos = decodeNanos;
+        this.indexNanos = indexNanos;
+        this.replayNanos = replayNanos;
+        this.totalNanos = totalNanos;
+        this.segments = segments;
+        this.threads = threads;
+        this.records = records;
+        this.replayedRecords = replayedRecords;
+    }
+
+    public long getDecodeNanos() { return decodeNanos; }
+    public long getIndexNanos() { return indexNanos; }
+    public long getReplayNanos() { return replayNanos; }
+    public long getTotalNanos() { return totalNanos; }
+    public int getSegments() { return segments; }
+    public int getThreads() { return threads; }
+    public int getRecords() { return records; }
+    public int getReplayedRecords() { return replayedRecords; }
+
+    @Override
+    public String toString() {
+        return String.format("Khởi động %.1f ms (đọc snapshot %.1f ms, dựng chỉ mục %.1f ms, WAL %.1f ms), "
+                        + "%d bản ghi / %d đoạn / %d luồng, phát lại %d thay đổi",
+                millis(totalNanos), millis(decodeNanos), millis(indexNanos), millis(replayNanos),
+                records, segments, threads, replayedRecords);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
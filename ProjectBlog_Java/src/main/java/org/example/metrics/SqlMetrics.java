@@ -0,0 +1,172 @@
+package org.example.metrics;
+
+import org.example.config.Database;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thống kê thực thi SQL theo từng câu lệnh mẫu (câu SQL có dấu ?): số lần gọi, số lỗi,
+// số dòng trả về/bị thay đổi và phân bố độ trễ. Câu lệnh chậm hơn ngưỡng được ghi ra file log.
+public final class SqlMetrics {
+    private static final SqlMetrics INSTANCE = new SqlMetrics(
+            Database.envLong("DB_SLOW_QUERY_MS", 200),
+            envString("DB_SLOW_QUERY_LOG", "slow-query.log"));
+
+    private final ConcurrentMap<String, Stat> stats = new ConcurrentHashMap<>();
+    private volatile long slowThresholdNanos;
+    private final String slowLogPath;
+    private BufferedWriter slowLog;
+    private boolean slowLogFailed;
+
+    private SqlMetrics(long slowThresholdMillis, String slowLogPath) {
+        this.slowThresholdNanos = thresholdNanos(slowThresholdMillis);
+        this.slowLogPath = slowLogPath;
+    }
+
+    public static SqlMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    // ========== GHI NHẬN ==========
+
+    // Ghi nhận một lần thực thi; rows = -1 khi chưa biết (câu SELECT, số dòng cộng sau qua addRows)
+    public void record(String sql, long elapsedNanos, long rows, boolean error) {
+        Stat stat = statOf(sql);
+        stat.calls.increment();
+        stat.totalNanos.add(elapsedNanos);
+        stat.latency.record(elapsedNanos);
+        if (rows > 0) {
+            stat.rows.add(rows);
+        }
+        if (error) {
+            stat.errors.increment();
+        }
+        if (elapsedNanos >= slowThresholdNanos) {
+            logSlow(sql, elapsedNanos, rows, error);
+        }
+    }
+
+    public void addRows(String sql, long rows) {
+        if (rows > 0) {
+            statOf(sql).rows.add(rows);
+        }
+    }
+
+    // 0 = tắt log câu lệnh chậm
+    public void setSlowQueryThresholdMillis(long millis) {
+        slowThresholdNanos = thresholdNanos(millis);
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    // ========== ĐỌC SỐ LIỆU ==========
+
+    // Danh sách thống kê, câu lệnh tốn nhiều thời gian nhất đứng đầu
+    public List<Stat> snapshot() {
+        List<Stat> ketQua = new ArrayList<>(stats.values());
+        ketQua.sort(Comparator.comparingLong(Stat::getTotalNanos).reversed());
+        return ketQua;
+    }
+
+    public void printReport(PrintStream out) {
+        List<Stat> list = snapshot();
+        if (list.isEmpty()) {
+            out.println("Chưa có câu lệnh SQL nào được thực thi.");
+            return;
+        }
+        out.printf("%8s %6s %9s %10s %9s %9s %9s  %s%n",
+                "Gọi", "Lỗi", "Dòng", "Tổng(ms)", "p50(ms)", "p99(ms)", "max(ms)", "SQL");
+        for (Stat s : list) {
+            out.printf("%8d %6d %9d %10.1f %9.2f %9.2f %9.2f  %s%n",
+                    s.getCalls(), s.getErrors(), s.getRows(), millis(s.getTotalNanos()),
+                    millis(s.getP50Nanos()), millis(s.getP99Nanos()), millis(s.getMaxNanos()),
+                    abbreviate(s.getSql(), 100));
+        }
+    }
+
+    // ========== NỘI BỘ ==========
+
+    private Stat statOf(String sql) {
+        Stat stat = stats.get(sql);
+        return stat != null ? stat : stats.computeIfAbsent(sql, Stat::new);
+    }
+
+    private synchronized void logSlow(String sql, long elapsedNanos, long rows, boolean error) {
+        if (slowLogFailed) {
+            return;
+        }
+        try {
+            if (slowLog == null) {
+                slowLog = Files.newBufferedWriter(Paths.get(slowLogPath), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            slowLog.write(String.format("%s | %.1f ms | rows=%s | %s%s | %s%n",
+                    LocalDateTime.now(), millis(elapsedNanos), rows >= 0 ? rows : "-",
+                    Thread.currentThread().getName(), error ? " | LỖI" : "", normalize(sql)));
+            slowLog.flush();
+        } catch (IOException e) {
+            // Không ghi được log thì tắt hẳn, không làm hỏng câu lệnh đang chạy
+            slowLogFailed = true;
+            System.err.println("Không ghi được slow query log " + slowLogPath + ": " + e.getMessage());
+        }
+    }
+
+    private static long thresholdNanos(long millis) {
+        return millis <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String abbreviate(String sql, int max) {
+        String s = normalize(sql);
+        return s.length() <= max ? s : s.substring(0, max - 3) + "...";
+    }
+
+    private static String envString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static final class Stat {
+        private final String sql;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Stat(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() { return sql; }
+        public long getCalls() { return calls.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public long getRows() { return rows.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getP50Nanos() { return latency.getValueAtPercentile(50); }
+        public long getP99Nanos() { return latency.getValueAtPercentile(99); }
+        public long getMaxNanos() { return latency.getMax(); }
+    }
+}
@@ -1,10 +1,13 @@
 package org.example.model;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 public class Post implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -12,6 +15,10 @@ public class Post implements Serializable {
     private int id;
     private String title;
     private String content;
+    // Nội dung chưa giải mã (snapshot ánh xạ bộ nhớ): chỉ giải mã ở lần getContent đầu tiên
+    private transient volatile Supplier<String> contentSource;
+    // Nội dung nằm ngoài heap (ContentArena): giải mã mỗi lần đọc, không giữ lại trên heap
+    private transient boolean contentOffHeap;
     private int authorId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -47,8 +54,39 @@ public class Post implements Serializable {
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    public String getContent() {
+        Supplier<String> source = contentSource;
+        if (source != null) {
+            if (contentOffHeap) {
+                return source.get();
+            }
+            content = source.get();
+            contentSource = null;
+        }
+        return content;
+    }
+    public void setContent(String content) {
+        this.content = content;
+        this.contentSource = null;
+    }
+
+    // null nếu nội dung đã nằm trên heap
+    public Supplier<String> getContentSource() { return contentSource; }
+    public void setContentSource(Supplier<String> contentSource) {
+        setContentSource(contentSource, false);
+    }
+    public void setContentSource(Supplier<String> contentSource, boolean offHeap) {
+        this.content = null;
+        this.contentOffHeap = offHeap;
+        this.contentSource = contentSource;
+    }
+    // Thay nguồn chưa giải mã bằng nguồn khác giữ cùng nội dung (không đụng tới content);
+    // nếu luồng khác vừa giải mã thì nguồn mới chỉ khiến lần đọc sau giải mã lại cùng nội dung
+    public void replaceContentSource(Supplier<String> expected, Supplier<String> replacement) {
+        if (contentSource == expected) {
+            contentSource = replacement;
+        }
+    }
 
     public int getAuthorId() { return authorId; }
     public void setAuthorId(int authorId) { this.authorId = authorId; }
@@ -64,6 +102,20 @@ public class Post implements Serializable {
 
     public void addComment(Comment comment) { this.comments.add(comment); }
 
+    // Giải mã nội dung trước khi serialize vì contentSource không được ghi;
+    // nội dung ngoài heap chỉ được đặt vào content trong lúc ghi
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        String saved = content;
+        content = getContent();
+        try {
+            out.defaultWriteObject();
+        } finally {
+            if (contentOffHeap && contentSource != null) {
+                content = saved;
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,49 @@
+package org.example.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+// Dữ liệu cho màn hình chi tiết: bài viết (kèm bình luận), tác giả và các bài viết mới nhất
+public class PostDetail implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Post post;
+    private User author;
+    // Khai báo ArrayList (Serializable) thay vì List; luôn chép danh sách được truyền vào
+    private ArrayList<PostSummary> latestPosts = new ArrayList<>();
+
+    public PostDetail() {
+    }
+
+    public PostDetail(Post post, User author, List<PostSummary> latestPosts) {
+        this.post = post;
+        this.author = author;
+        this.latestPosts = copyOf(latestPosts);
+    }
+
+    public Post getPost() { return post; }
+    public void setPost(Post post) { this.post = post; }
+
+    // null nếu tài khoản tác giả không còn tồn tại
+    public User getAuthor() { return author; }
+    public void setAuthor(User author) { this.author = author; }
+
+    public List<PostSummary> getLatestPosts() { return latestPosts; }
+    public void setLatestPosts(List<PostSummary> latestPosts) {
+        this.latestPosts = copyOf(latestPosts);
+    }
+
+    @Override
+    public String toString() {
+        return "PostDetail{" +
+                "post=" + post +
+                ", author=" + author +
+                ", latestPosts=" + latestPosts.size() +
+                '}';
+    }
+
+    private static ArrayList<PostSummary> copyOf(List<PostSummary> posts) {
+        return posts == null ? new ArrayList<>() : new ArrayList<>(posts);
+    }
+}
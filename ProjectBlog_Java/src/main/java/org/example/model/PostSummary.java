@@ -0,0 +1,71 @@
+package org.example.model;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Dạng rút gọn của Post cho màn hình danh sách: không có nội dung đầy đủ,
+// chỉ có đoạn trích ngắn và số bình luận đã lưu sẵn
+public class PostSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int id;
+    private String title;
+    private int authorId;
+    private LocalDateTime createdAt;
+    private int commentCount;
+    private String excerpt;
+
+    public PostSummary() {
+    }
+
+    public PostSummary(int id, String title, int authorId, LocalDateTime createdAt,
+                       int commentCount, String excerpt) {
+        this.id = id;
+        this.title = title;
+        this.authorId = authorId;
+        this.createdAt = createdAt;
+        this.commentCount = commentCount;
+        this.excerpt = excerpt;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public int getAuthorId() { return authorId; }
+    public void setAuthorId(int authorId) { this.authorId = authorId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public int getCommentCount() { return commentCount; }
+    public void setCommentCount(int commentCount) { this.commentCount = commentCount; }
+
+    public String getExcerpt() { return excerpt; }
+    public void setExcerpt(String excerpt) { this.excerpt = excerpt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PostSummary)) return false;
+        PostSummary that = (PostSummary) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(id); }
+
+    @Override
+    public String toString() {
+        return "PostSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", authorId=" + authorId +
+                ", createdAt=" + createdAt +
+                ", commentCount=" + commentCount +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.service;
+
+import org.example.config.Database;
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.PostDetail;
+import org.example.model.PostSummary;
+import org.example.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Phiên bản bất đồng bộ của JdbcBlogService: mỗi lời gọi chạy trên một virtual thread và trả về
+// CompletableFuture, nên có thể gọi song song nhiều truy vấn độc lập rồi ghép kết quả.
+// Số lời gọi chạy cùng lúc bị giới hạn bằng kích thước pool kết nối; phần dư chờ trên semaphore
+// (virtual thread chờ gần như không tốn tài nguyên) thay vì xếp hàng trong pool.
+public class AsyncBlogService implements AutoCloseable {
+    private static final int LATEST_POSTS = 5;
+
+    private final JdbcBlogService delegate;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncBlogService() {
+        this(JdbcBlogService.create());
+    }
+
+    public AsyncBlogService(JdbcBlogService delegate) {
+        this(delegate, Database.getPoolMaxSize());
+    }
+
+    public AsyncBlogService(JdbcBlogService delegate, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency phải lớn hơn 0");
+        }
+        this.delegate = delegate;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blog-async-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    // Chạy một tác vụ bất kỳ (thường là một lời gọi JdbcBlogService) trên virtual thread
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    // Chờ tất cả future xong, giữ nguyên thứ tự đầu vào; lỗi của bất kỳ future nào làm hỏng kết quả
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> ketQua = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> f : futures) {
+                        ketQua.add(f.join());
+                    }
+                    return ketQua;
+                });
+    }
+
+    // ========== GHÉP NHIỀU TRUY VẤN ==========
+
+    // Bài viết (kèm bình luận) và danh sách bài mới nhất được đọc song song,
+    // tác giả được đọc ngay khi biết authorId
+    public CompletableFuture<Optional<PostDetail>> getPostDetail(int postId) {
+        CompletableFuture<Optional<Post>> post = getPostById(postId);
+        CompletableFuture<List<PostSummary>> latest = getPostSummaryPage(null, 0, LATEST_POSTS);
+        CompletableFuture<Optional<User>> author = post.thenCompose(op -> op.isPresent()
+                ? findUserById(op.get().getAuthorId())
+                : CompletableFuture.completedFuture(Optional.empty()));
+        return CompletableFuture.allOf(post, latest, author).thenApply(ignored -> post.join().map(p ->
+                new PostDetail(p, author.join().orElse(null), latest.join())));
+    }
+
+    // Đọc nhiều bài viết cùng lúc; bài không tồn tại bị bỏ qua, thứ tự theo ids
+    public CompletableFuture<List<Post>> getPostsByIds(Collection<Integer> ids) {
+        List<CompletableFuture<Optional<Post>>> futures = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            futures.add(getPostById(id));
+        }
+        return allOf(futures).thenApply(results -> {
+            List<Post> ketQua = new ArrayList<>(results.size());
+            for (Optional<Post> op : results) {
+                op.ifPresent(ketQua::add);
+            }
+            return ketQua;
+        });
+    }
+
+    // ========== USER MANAGEMENT ==========
+
+    public CompletableFuture<Void> addUser(User user) {
+        return supply(() -> {
+            delegate.addUser(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Optional<User>> findUserById(int id) {
+        return supply(() -> delegate.findUserById(id));
+    }
+
+    public CompletableFuture<Optional<User>> findUserByUsername(String username) {
+        return supply(() -> delegate.findUserByUsername(username));
+    }
+
+    public CompletableFuture<Optional<User>> authenticateUser(String username, String password) {
+        return supply(() -> delegate.authenticateUser(username, password));
+    }
+
+    // ========== POST MANAGEMENT ==========
+
+    public CompletableFuture<Post> addPost(Post post) {
+        return supply(() -> {
+            delegate.addPost(post);
+            return post;
+        });
+    }
+
+    public CompletableFuture<List<Post>> getAllPosts() {
+        return supply(delegate::getAllPosts);
+    }
+
+    public CompletableFuture<List<PostSummary>> getPostSummaryPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return supply(() -> delegate.getPostSummaryPage(afterCreatedAt, afterId, limit));
+    }
+
+    public CompletableFuture<List<Post>> searchPosts(String keyword) {
+        return supply(() -> delegate.searchPosts(keyword));
+    }
+
+    public CompletableFuture<List<PostSummary>> searchPostSummaries(String keyword) {
+        return supply(() -> delegate.searchPostSummaries(keyword));
+    }
+
+    public CompletableFuture<Optional<Post>> getPostById(int id) {
+        return supply(() -> delegate.getPostById(id));
+    }
+
+    public CompletableFuture<Boolean> updatePost(Post post) {
+        return supply(() -> delegate.updatePost(post));
+    }
+
+    public CompletableFuture<Boolean> deletePost(int id) {
+        return supply(() -> delegate.deletePost(id));
+    }
+
+    // ========== COMMENT MANAGEMENT ==========
+
+    public CompletableFuture<Boolean> addComment(Comment comment) {
+        return supply(() -> delegate.addComment(comment));
+    }
+
+    public CompletableFuture<List<Comment>> addComments(Collection<Comment> comments) {
+        return supply(() -> delegate.addComments(comments));
+    }
+
+    public CompletableFuture<List<Comment>> getCommentsByPostId(int postId) {
+        return supply(() -> delegate.getCommentsByPostId(postId));
+    }
+
+    public CompletableFuture<Boolean> deleteComment(int id) {
+        return supply(() -> delegate.deleteComment(id));
+    }
+
+    public JdbcBlogService getDelegate() {
+        return delegate;
+    }
+
+    // Không nhận thêm tác vụ mới, chờ các tác vụ đang chạy hoàn tất
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
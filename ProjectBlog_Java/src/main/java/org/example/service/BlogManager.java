@@ -1,45 +1,127 @@
 package org.example.service;
 
+import org.example.config.Database;
+import org.example.metrics.CheckpointMetrics;
+import org.example.metrics.LoadMetrics;
+import org.example.storage.ArenaStats;
+import org.example.storage.ContentArena;
 import org.example.model.User;
 import org.example.model.Post;
 import org.example.model.Comment;
+import org.example.storage.SnapshotCodec;
+import org.example.storage.SnapshotData;
+import org.example.storage.WriteAheadLog;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
-public class BlogManager {
-    private List<User> users = new ArrayList<>();
-    private List<Post> posts = new ArrayList<>();
-    private List<Comment> comments = new ArrayList<>();
+public class BlogManager implements Closeable {
+    // Chỉ mục chính theo id. ConcurrentSkipListMap cho phép đọc/ghi đồng thời không cần khóa chung
+    // và duyệt theo thứ tự id (id cấp tăng dần nên trùng thứ tự thêm vào)
+    private final Map<Integer, User> users = new ConcurrentSkipListMap<>();
+    private final Map<Integer, PostSlot> posts = new ConcurrentSkipListMap<>();
+    // Bình luận lưu dạng cột (CommentStore), không giữ một đối tượng Comment cho mỗi bình luận
+    private final CommentStore comments = new CommentStore();
+    private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    // Nội dung bài viết ngoài heap; null = giữ nội dung trên heap như cũ
+    private final ContentArena contentArena;
+    
+    // Bộ đếm id: giữ id lớn nhất đã cấp, được khôi phục từ dữ liệu khi loadFromFile
+    private final AtomicInteger userSequence = new AtomicInteger();
+    private final AtomicInteger postSequence = new AtomicInteger();
+    private final AtomicInteger commentSequence = new AtomicInteger();
     
     // File để lưu dữ liệu bằng Serialization
     private static final String DATA_FILE = "blog_data.dat";
+    private final String dataFile;
+    
+    // WAL: null khi chưa gọi openWriteAheadLog (dữ liệu chỉ ghi ra đĩa khi saveToFile)
+    private volatile WriteAheadLog wal;
+    // Lần loadFromFile gần nhất không đọc được snapshot/WAL: các file đó được giữ nguyên cho tới khi
+    // người dùng chủ động lưu (checkpoint chuyển chúng sang tên khác trước khi ghi snapshot mới)
+    private volatile boolean loadFailed;
+    
+    // Checkpoint: luồng nền "blog-checkpoint" (tạo khi cần), không cho hai checkpoint chạy cùng lúc
+    private ScheduledExecutorService checkpointExecutor;
+    private final Object checkpointLock = new Object();
+    private final ReentrantReadWriteLock checkpointGate = new ReentrantReadWriteLock();
+    private volatile CheckpointView checkpointView;
+    private final CheckpointMetrics checkpointMetrics = new CheckpointMetrics();
+    private final LoadMetrics loadMetrics = new LoadMetrics();
+    private static final long CHECKPOINT_CHECK_SECONDS = 5;
+    
+    // BLOG_OFFHEAP_CONTENT=1 (hoặc true) để lưu nội dung bài viết ngoài heap
+    public BlogManager() {
+        this(DATA_FILE, Database.envBoolean("BLOG_OFFHEAP_CONTENT", false));
+    }
+    
+    // Dùng file dữ liệu khác (benchmark, thử nghiệm) thay cho blog_data.dat
+    public BlogManager(String dataFile) {
+        this(dataFile, false);
+    }
+    
+    // offHeapContent: nội dung bài viết nằm trong ContentArena, Post chỉ giữ handle
+    public BlogManager(String dataFile, boolean offHeapContent) {
+        this.dataFile = dataFile;
+        this.contentArena = offHeapContent ? new ContentArena() : null;
+    }
     
     // ========== USER MANAGEMENT ==========
     
     public void addUser(User user) {
-        users.add(user);
+        awaitDurable(mutate(() -> addUser(user, wal)));
+    }
+    
+    // Các hàm (…, WriteAheadLog log) áp dụng thay đổi và ghi WAL nếu log != null (replay truyền null).
+    // Trả về vị trí bản ghi trong WAL (0 nếu không ghi), -1 nếu không áp dụng được.
+    // Trước khi sửa/xóa một bản ghi phải gọi preserve để checkpoint đang chạy giữ được bản cũ
+    private long addUser(User user, WriteAheadLog log) {
+        preserveUser(user.getId(), users.get(user.getId()));
+        users.put(user.getId(), user);
+        userSequence.accumulateAndGet(user.getId(), Math::max);
+        // Trùng username thì giữ tài khoản đăng ký trước, như khi tìm tuần tự trong danh sách
+        usersByUsername.putIfAbsent(user.getUsername(), user);
+        return log == null ? 0 : log.logAddUser(user);
     }
     
     public Optional<User> findUserByUsername(String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return Optional.of(user);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(usersByUsername.get(username));
     }
     
     public Optional<User> authenticateUser(String username, String password) {
-        for (User user : users) {
-            if (user.getUsername().equals(username) && 
-                user.getPasswordHash().equals(password)) {
-                return Optional.of(user);
-            }
+        User user = usersByUsername.get(username);
+        if (user != null && user.getPasswordHash().equals(password)) {
+            return Optional.of(user);
         }
         return Optional.empty();
     }
@@ -47,182 +129,646 @@ public class BlogManager {
     // ========== POST MANAGEMENT ==========
     
     public void addPost(Post post) {
-        posts.add(post);
+        awaitDurable(mutate(() -> addPost(post, wal)));
+    }
+    
+    private long addPost(Post post, WriteAheadLog log) {
+        postSequence.accumulateAndGet(post.getId(), Math::max);
+        PostSlot slot = posts.get(post.getId());
+        if (slot == null) {
+            preservePost(post.getId(), null);
+            PostSlot created = newSlot(post);
+            // Khóa slot mới trước khi công bố: luồng khác thấy slot thì phải chờ ADD_POST được ghi xong,
+            // nên ADD_POST luôn là bản ghi đầu tiên của bài viết trong WAL
+            synchronized (created) {
+                slot = posts.putIfAbsent(post.getId(), created);
+                if (slot == null) {
+                    return log == null ? 0 : log.logAddPost(post);
+                }
+            }
+            freeContent(created);
+        }
+        synchronized (slot) {
+            preservePost(post.getId(), slot.post);
+            replacePost(slot, post);
+            return log == null ? 0 : log.logAddPost(post);
+        }
     }
 
     public List<Post> getAllPosts() {
-        List<Post> copy = new ArrayList<>();
-        for (Post post : posts) {
-            copy.add(post);
+        List<Post> ketQua = new ArrayList<>(posts.size());
+        for (PostSlot slot : posts.values()) {
+            ketQua.add(slot.post);
         }
-        return copy;
+        return ketQua;
     }
     
     public Optional<Post> getPostById(int id) {
-        for (Post post : posts) {
-            if (post.getId() == id) {
-                return Optional.of(post);
+        PostSlot slot = posts.get(id);
+        return slot == null ? Optional.empty() : Optional.of(slot.post);
+    }
+    
+    // Chép nội dung vào arena (nếu bật) trước khi công bố bài viết; gọi trong khóa của slot
+    private void replacePost(PostSlot slot, Post post) {
+        if (contentArena != null) {
+            ContentArena.Handle old = slot.content;
+            slot.content = contentArena.store(post);
+            if (old != slot.content) {
+                contentArena.free(old);
             }
         }
-        return Optional.empty();
+        slot.post = post;
+    }
+    
+    private PostSlot newSlot(Post post) {
+        PostSlot slot = new PostSlot(post);
+        if (contentArena != null) {
+            slot.content = contentArena.store(post);
+        }
+        return slot;
+    }
+    
+    // Bài viết đã xóa giữ nguyên handle: bản cũ (checkpoint, người gọi) vẫn đọc được nội dung
+    private void freeContent(PostSlot slot) {
+        if (contentArena != null) {
+            contentArena.free(slot.content);
+        }
+    }
+    
+    // Kích thước arena nội dung bài viết; rỗng nếu không bật lưu ngoài heap
+    public Optional<ArenaStats> getContentArenaStats() {
+        return contentArena == null ? Optional.empty() : Optional.of(contentArena.getStats());
     }
     
     public boolean updatePost(Post updatedPost) {
-        for (int i = 0; i < posts.size(); i++) {
-            if (posts.get(i).getId() == updatedPost.getId()) {
-                posts.set(i, updatedPost);
-                return true;
+        return awaitDurable(mutate(() -> updatePost(updatedPost, wal)));
+    }
+    
+    // Ghi WAL khi còn giữ khóa bài viết để thứ tự trong WAL trùng thứ tự áp dụng
+    private long updatePost(Post updatedPost, WriteAheadLog log) {
+        PostSlot slot = posts.get(updatedPost.getId());
+        if (slot == null) {
+            return -1;
+        }
+        synchronized (slot) {
+            if (slot.deleted) {
+                return -1;
             }
+            preservePost(updatedPost.getId(), slot.post);
+            replacePost(slot, updatedPost);
+            return log == null ? 0 : log.logUpdatePost(updatedPost);
         }
-        return false;
     }
     
     public boolean deletePost(int postId) {
-        // Xóa post
-        boolean postDeleted = false;
-        for (int i = 0; i < posts.size(); i++) {
-            if (posts.get(i).getId() == postId) {
-                posts.remove(i);
-                postDeleted = true;
-                break;
-            }
+        return awaitDurable(mutate(() -> deletePost(postId, wal)));
+    }
+    
+    private long deletePost(int postId, WriteAheadLog log) {
+        PostSlot slot = posts.get(postId);
+        if (slot == null) {
+            return -1;
         }
-        
-        // Xóa tất cả comments của post đó
-        for (int i = comments.size() - 1; i >= 0; i--) {
-            if (comments.get(i).getPostId() == postId) {
-                comments.remove(i);
+        // Khóa của bài viết: bình luận đang được thêm vào bài này sẽ hoàn tất trước,
+        // bình luận thêm sau sẽ thấy deleted và bị từ chối
+        synchronized (slot) {
+            if (slot.deleted) {
+                return -1;
             }
+            preservePost(postId, slot.post);
+            posts.remove(postId);
+            slot.deleted = true;
+            freeContent(slot);
+            // Xóa tất cả comments của post đó (lưu bản cũ trước khi xóa)
+            for (Comment comment : comments.getByPost(postId)) {
+                preserveComment(comment.getId(), comment);
+            }
+            comments.removeByPost(postId);
+            return log == null ? 0 : log.logDeletePost(postId);
         }
-        
-        return postDeleted;
     }
     
     // ========== COMMENT MANAGEMENT ==========
     
+    // Chỉ khóa bài viết được bình luận: bình luận vào các bài khác nhau không chờ nhau
     public boolean addComment(Comment comment) {
-
-        Optional<Post> post = getPostById(comment.getPostId());
-        if (!post.isPresent()) {
-            System.out.println("Không thể thêm bình luận: không tìm thấy bài viết với ID=" + comment.getPostId());
-            return false;
+        if (awaitDurable(mutate(() -> addComment(comment, wal)))) {
+            return true;
+        }
+        System.out.println("Không thể thêm bình luận: không tìm thấy bài viết với ID=" + comment.getPostId());
+        return false;
+    }
+    
+    private long addComment(Comment comment, WriteAheadLog log) {
+        PostSlot slot = posts.get(comment.getPostId());
+        if (slot != null) {
+            synchronized (slot) {
+                if (!slot.deleted) {
+                    commentSequence.accumulateAndGet(comment.getId(), Math::max);
+                    preserveComment(comment.getId(), comments.get(comment.getId()));
+                    comments.put(comment);
+                    return log == null ? 0 : log.logAddComment(comment);
+                }
+            }
         }
-        comments.add(comment);
-        return true;
+        return -1;
     }
 
-    // Bảo vệ bằng synchronized cho bài toán đa luồng (Task 4)
+    // Khóa chung toàn bộ BlogManager (Task 4), giữ lại để so sánh với addComment khóa theo bài viết
     public synchronized boolean addCommentSynchronized(Comment comment) {
-        Optional<Post> post = getPostById(comment.getPostId());
-        if (!post.isPresent()) {
-            System.out.println("Không thể thêm bình luận: không tìm thấy bài viết với ID=" + comment.getPostId());
-            return false;
-        }
-        comments.add(comment);
-        return true;
+        return addComment(comment);
     }
     
+    // Mỗi lần gọi dựng các Comment mới từ CommentStore; sửa chúng không làm đổi dữ liệu đã lưu
     public List<Comment> getCommentsByPostId(int postId) {
-        List<Comment> postComments = new ArrayList<>();
-        for (Comment comment : comments) {
-            if (comment.getPostId() == postId) {
-                postComments.add(comment);
-            }
-        }
-
-        return postComments;
+        return comments.getByPost(postId);
+    }
+    
+    // Số bình luận và bộ nhớ ước lượng của kho bình luận
+    public String getCommentStoreSummary() {
+        return comments.toString();
     }
     
     public boolean deleteComment(int commentId) {
-        for (int i = 0; i < comments.size(); i++) {
-            if (comments.get(i).getId() == commentId) {
-                comments.remove(i);
-                return true;
+        return awaitDurable(mutate(() -> deleteComment(commentId, wal)));
+    }
+    
+    private long deleteComment(int commentId, WriteAheadLog log) {
+        Comment current = comments.get(commentId);
+        if (current == null) {
+            return -1;
+        }
+        PostSlot slot = posts.get(current.getPostId());
+        if (slot == null) {
+            return -1;
+        }
+        synchronized (slot) {
+            // Đọc lại trong khóa bài viết: luồng khác có thể vừa xóa bình luận này
+            Comment removed = comments.get(commentId);
+            if (removed == null || removed.getPostId() != current.getPostId()) {
+                return -1;
             }
+            preserveComment(commentId, removed);
+            comments.remove(commentId);
+            return log == null ? 0 : log.logDeleteComment(commentId);
         }
-        return false;
     }
     
     // ========== DATA PERSISTENCE ==========
     
+    // Ghi snapshot trên luồng checkpoint nền và chờ kết quả; nếu đang bật WAL thì đây cũng là
+    // bước gộp WAL vào snapshot. Các luồng khác vẫn đọc/ghi bình thường trong lúc ghi file
     public void saveToFile() {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            BlogData data = new BlogData(users, posts, comments);
-            out.writeObject(data);
-            System.out.println("Đã lưu dữ liệu vào file: " + DATA_FILE);
-        } catch (IOException e) {
-            System.err.println("Lỗi khi lưu file: " + e.getMessage());
+        try {
+            long bytes = checkpointAsync().join();
+            System.out.println("Đã lưu dữ liệu vào file: " + dataFile + " (" + bytes + " byte, "
+                    + checkpointMetrics.getLastDurationNanos() / 1_000_000 + " ms)");
+        } catch (CompletionException e) {
+            System.err.println("Lỗi khi lưu file: " + e.getCause().getMessage());
         }
     }
     
-    public void loadFromFile() {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-            BlogData data = (BlogData) in.readObject();
-            this.users = data.getUsers();
-            this.posts = data.getPosts();
-            this.comments = data.getComments();
+    // Giải mã snapshot và dựng chỉ mục song song trên số luồng bằng số nhân CPU.
+    // Mỗi bình luận được gắn vào bài viết bằng một lần tra chỉ mục: tổng cộng O(P + C).
+    // Bình luận không còn được chép vào Post.getComments(); đọc qua getCommentsByPostId.
+    // Trả về false nếu snapshot hoặc WAL không đọc được: dữ liệu trong bộ nhớ được làm trống,
+    // file trên đĩa giữ nguyên và openWriteAheadLog sẽ từ chối bật WAL
+    public boolean loadFromFile() {
+        Path path = Paths.get(dataFile);
+        int threads = Runtime.getRuntime().availableProcessors();
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("blog-load-", 0).daemon().factory())) {
+            // Bước 1: đọc và giải mã snapshot
+            SnapshotData data = null;
+            if (!Files.exists(path)) {
+                System.out.println("Chưa có file dữ liệu: " + dataFile);
+            } else if (SnapshotCodec.isLegacyFormat(path)) {
+                data = readLegacyFile(path);
+                upgradeLegacyFile(path, data);
+            } else {
+                data = SnapshotCodec.read(path, pool);
+            }
+            long decoded = System.nanoTime();
             
-            // Đồng bộ comments vào posts
-            for (Post post : posts) {
-                post.getComments().clear(); // Xóa comments cũ
-                List<Comment> comments = new ArrayList<>();
-                for (Comment comment : this.comments) {
-                    if (comment.getPostId() == post.getId()) {
-                        comments.add(comment);
-                    }
+            // Bước 2: dựng lại các chỉ mục và bộ đếm id từ danh sách đã lưu
+            clearData();
+            if (data != null) {
+                // User giữ tuần tự: trùng username thì tài khoản đứng trước được giữ
+                for (User user : data.getUsers()) {
+                    addUser(user, null);
                 }
-                post.setComments(comments);
+                forEachChunk(pool, threads, data.getPosts(), chunk -> {
+                    int maxId = 0;
+                    for (Post post : chunk) {
+                        posts.put(post.getId(), newSlot(post));
+                        maxId = Math.max(maxId, post.getId());
+                    }
+                    postSequence.accumulateAndGet(maxId, Math::max);
+                });
+                forEachChunk(pool, threads, data.getComments(), chunk -> {
+                    int maxId = 0;
+                    for (Comment comment : chunk) {
+                        // Bình luận của bài đã xóa thì bỏ qua
+                        if (posts.containsKey(comment.getPostId())) {
+                            comments.put(comment);
+                        }
+                        maxId = Math.max(maxId, comment.getId());
+                    }
+                    commentSequence.accumulateAndGet(maxId, Math::max);
+                });
+            }
+            long indexed = System.nanoTime();
+            
+            // Bước 3: áp dụng các thay đổi ghi sau snapshot
+            int replayed = WriteAheadLog.replay(path, new Replayer());
+            long replayedAt = System.nanoTime();
+            if (replayed > 0) {
+                System.out.println("Đã phát lại " + replayed + " thay đổi từ WAL");
             }
+            long done = System.nanoTime();
             
-            System.out.println("Đã tải dữ liệu từ file: " + DATA_FILE);
-        } catch (IOException | ClassNotFoundException e) {
+            int records = data == null ? 0
+                    : data.getUsers().size() + data.getPosts().size() + data.getComments().size();
+            loadMetrics.record(decoded - start, indexed - decoded, replayedAt - indexed,
+                    done - start,
+                    data == null ? 0 : data.getSegments(), threads, records, replayed);
+            if (data != null) {
+                System.out.println("Đã tải dữ liệu từ file: " + dataFile);
+            } else {
+                System.out.println("Khởi tạo dữ liệu mới...");
+            }
+            System.out.println(loadMetrics);
+            loadFailed = false;
+            return true;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // Không giữ trạng thái phát lại dở dang
+            clearData();
+            loadFailed = true;
             System.err.println("Lỗi khi tải file: " + e.getMessage());
-            System.out.println("Khởi tạo dữ liệu mới...");
+            System.out.println("Khởi tạo dữ liệu mới (file " + dataFile + " và WAL được giữ nguyên, "
+                    + "chỉ bị thay khi chọn lưu dữ liệu)...");
+            return false;
         }
     }
     
-
-    // ========== UTILITY METHODS ==========
+    private void clearData() {
+        users.clear();
+        usersByUsername.clear();
+        posts.clear();
+        comments.clear();
+        if (contentArena != null) {
+            contentArena.clear();
+        }
+        userSequence.set(0);
+        postSequence.set(0);
+        commentSequence.set(0);
+    }
     
-    public int getNextPostId() {
-        int maxId = 0;
-        for (Post post : posts) {
-            if (post.getId() > maxId) {
-                maxId = post.getId();
+    public LoadMetrics getLoadMetrics() {
+        return loadMetrics;
+    }
+    
+    // Chia danh sách thành các phần liên tiếp (vài phần cho mỗi luồng để chia tải đều),
+    // xử lý mỗi phần trên một tác vụ của pool rồi chờ tất cả
+    private static <T> void forEachChunk(ExecutorService pool, int threads, List<T> list,
+                                         Consumer<List<T>> action) throws IOException {
+        int chunkSize = Math.max(1024, list.size() / (threads * 4) + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            List<T> chunk = list.subList(from, Math.min(list.size(), from + chunkSize));
+            futures.add(pool.submit(() -> action.accept(chunk)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Bị ngắt khi tải dữ liệu");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IOException(e.getCause());
             }
         }
-        return maxId + 1;
     }
     
-    public int getNextCommentId() {
-        int maxId = 0;
-        for (Comment comment : comments) {
-            if (comment.getId() > maxId) {
-                maxId = comment.getId();
+    // ========== CHECKPOINT ==========
+    
+    // Gửi một lần ghi snapshot cho luồng checkpoint nền; trả về kích thước file (byte)
+    public CompletableFuture<Long> checkpointAsync() {
+        CompletableFuture<Long> ketQua = new CompletableFuture<>();
+        checkpointExecutor().execute(() -> {
+            try {
+                ketQua.complete(checkpoint());
+            } catch (IOException | RuntimeException e) {
+                ketQua.completeExceptionally(e);
             }
+        });
+        return ketQua;
+    }
+    
+    // <file>.unreadable-<thời điểm> và <file>.wal.<số>.unreadable-<thời điểm>; listSegments bỏ qua các tên này
+    private void moveUnreadableFilesAside(Path path) throws IOException {
+        String suffix = ".unreadable-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        if (Files.exists(path)) {
+            Path target = path.resolveSibling(path.getFileName() + suffix);
+            Files.move(path, target);
+            System.out.println("Đã chuyển file dữ liệu không đọc được sang " + target);
         }
-        return maxId + 1;
+        WriteAheadLog.moveSegmentsAside(path, suffix);
+        loadFailed = false;
     }
     
-    public int getNextUserId() {
-        int maxId = 0;
-        for (User user : users) {
-            if (user.getId() > maxId) {
-                maxId = user.getId();
+    public CheckpointMetrics getCheckpointMetrics() {
+        return checkpointMetrics;
+    }
+    
+    // Chụp trạng thái tại một thời điểm rồi ghi ra file tạm, fsync và đổi tên (SnapshotCodec.write).
+    //   Bước 1: chuyển WAL sang đoạn mới (thay đổi từ đây về sau nằm ở đoạn mới)
+    //   Bước 2: chặn ghi trong chốc lát để gắn CheckpointView: mỗi luồng ghi sau đó lưu lại bản cũ
+    //           của bản ghi trước khi sửa/xóa (copy-on-write), nên không cần chép toàn bộ dữ liệu
+    //   Bước 3: duyệt dữ liệu hiện tại, thay bằng bản cũ khi có, ghi snapshot
+    //   Bước 4: xóa các đoạn WAL đã nằm trong snapshot
+    // Thay đổi nằm giữa bước 1 và 2 vừa có trong snapshot vừa có trong WAL; replay ghi đè/xóa theo id
+    // nên áp dụng lặp cũng không sai.
+    private long checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long start = System.nanoTime();
+            Path path = Paths.get(dataFile);
+            CheckpointView view = new CheckpointView();
+            try {
+                // Lần tải trước thất bại: chuyển snapshot và WAL không đọc được sang tên khác
+                // thay vì ghi đè/xóa chúng
+                if (loadFailed) {
+                    moveUnreadableFilesAside(path);
+                }
+                
+                // Bước 1
+                WriteAheadLog log = wal;
+                long firstSegment = log == null ? Long.MAX_VALUE : log.rotate();
+                
+                // Bước 2
+                long pauseStart = System.nanoTime();
+                int maxCommentId;
+                checkpointGate.writeLock().lock();
+                try {
+                    checkpointView = view;
+                    // Mọi bình luận đang có đều có id không vượt quá bộ đếm; bình luận thêm sau
+                    // (id lớn hơn) chưa tồn tại lúc chụp nên không cần duyệt tới
+                    maxCommentId = commentSequence.get();
+                } finally {
+                    checkpointGate.writeLock().unlock();
+                }
+                long pause = System.nanoTime() - pauseStart;
+                
+                // Bước 3
+                List<User> userList = view.collect(users.entrySet(), users.size(), u -> u, view.users);
+                List<Post> postList = view.collect(posts.entrySet(), posts.size(), slot -> slot.post, view.posts);
+                List<Comment> commentList = view.collect(comments.entries(maxCommentId), comments.size(), c -> c, view.comments);
+                long bytes = SnapshotCodec.write(path, userList, postList, commentList);
+                
+                // Bước 4
+                WriteAheadLog.deleteSegmentsBefore(path, firstSegment);
+                checkpointMetrics.record(System.nanoTime() - start, pause, bytes, view.preserved.sum());
+                return bytes;
+            } catch (IOException | RuntimeException e) {
+                checkpointMetrics.recordFailure();
+                throw e;
+            } finally {
+                checkpointView = null;
             }
         }
-        return maxId + 1;
+    }
+    
+    private synchronized ScheduledExecutorService checkpointExecutor() {
+        if (checkpointExecutor == null) {
+            checkpointExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "blog-checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return checkpointExecutor;
+    }
+    
+    // Mọi thay đổi chạy trong khóa đọc của checkpointGate (nhiều luồng ghi cùng lúc được),
+    // checkpoint chỉ lấy khóa ghi trong lúc gắn CheckpointView
+    private long mutate(LongSupplier change) {
+        Lock gate = checkpointGate.readLock();
+        gate.lock();
+        try {
+            return change.getAsLong();
+        } finally {
+            gate.unlock();
+        }
+    }
+    
+    private void preserveUser(int id, User old) {
+        CheckpointView view = checkpointView;
+        if (view != null) {
+            view.preserve(view.users, id, old);
+        }
+    }
+    
+    private void preservePost(int id, Post old) {
+        CheckpointView view = checkpointView;
+        if (view != null) {
+            view.preserve(view.posts, id, old);
+        }
+    }
+    
+    private void preserveComment(int id, Comment old) {
+        CheckpointView view = checkpointView;
+        if (view != null) {
+            view.preserve(view.comments, id, old);
+        }
+    }
+    
+    // Trạng thái tại thời điểm bắt đầu checkpoint = dữ liệu hiện tại, trừ các bản ghi bị sửa/xóa sau đó
+    // (lấy bản cũ đã lưu) và các bản ghi thêm sau đó (ABSENT: chưa tồn tại lúc chụp)
+    private static final class CheckpointView {
+        private static final Object ABSENT = new Object();
+        private final Map<Integer, Object> users = new ConcurrentHashMap<>();
+        private final Map<Integer, Object> posts = new ConcurrentHashMap<>();
+        private final Map<Integer, Object> comments = new ConcurrentHashMap<>();
+        private final LongAdder preserved = new LongAdder();
+        
+        // Chỉ lần sửa đầu tiên sau khi chụp mới giữ bản cũ
+        void preserve(Map<Integer, Object> before, int id, Object old) {
+            if (before.putIfAbsent(id, old == null ? ABSENT : old) == null) {
+                preserved.increment();
+            }
+        }
+        
+        // Luồng ghi lưu bản cũ trước khi sửa dữ liệu hiện tại, nên nếu đọc được giá trị mới
+        // thì chắc chắn thấy bản cũ trong before. Bản ghi bị xóa trước khi được duyệt tới
+        // chỉ còn trong before, được thêm ở vòng thứ hai.
+        @SuppressWarnings("unchecked")
+        <V, T> List<T> collect(Iterable<Map.Entry<Integer, V>> live, int expectedSize, Function<V, T> valueOf,
+                               Map<Integer, Object> before) {
+            List<T> ketQua = new ArrayList<>(expectedSize);
+            BitSet seen = new BitSet();
+            for (Map.Entry<Integer, V> entry : live) {
+                T current = valueOf.apply(entry.getValue());
+                Object old = before.get(entry.getKey());
+                seen.set(entry.getKey());
+                if (old == null) {
+                    ketQua.add(current);
+                } else if (old != ABSENT) {
+                    ketQua.add((T) old);
+                }
+            }
+            for (Map.Entry<Integer, Object> entry : before.entrySet()) {
+                if (entry.getValue() != ABSENT && !seen.get(entry.getKey())) {
+                    ketQua.add((T) entry.getValue());
+                }
+            }
+            return ketQua;
+        }
+    }
+    
+    // ========== WRITE-AHEAD LOG ==========
+    
+    // Cấu hình qua biến môi trường (giá trị sai định dạng thì dùng mặc định):
+    //   BLOG_WAL_FSYNC_MS                0 = mỗi thao tác chờ fsync (gom nhóm); > 0 = fsync định kỳ (mặc định 0)
+    //   BLOG_WAL_COMPACT_BYTES           checkpoint khi đoạn WAL đang ghi vượt ngưỡng (mặc định 8 MB)
+    //   BLOG_CHECKPOINT_INTERVAL_SECONDS checkpoint định kỳ nếu có thay đổi (mặc định 300, 0 = tắt)
+    public void openWriteAheadLog() throws IOException {
+        openWriteAheadLog(Database.envLong("BLOG_WAL_FSYNC_MS", 0),
+                Database.envLong("BLOG_WAL_COMPACT_BYTES", 8L * 1024 * 1024),
+                Database.envLong("BLOG_CHECKPOINT_INTERVAL_SECONDS", 300));
+    }
+    
+    // Gọi sau loadFromFile: từ đây mọi thay đổi được ghi WAL trước khi trả về,
+    // luồng checkpoint kiểm tra định kỳ để gộp WAL vào snapshot
+    public synchronized void openWriteAheadLog(long fsyncIntervalMillis, long compactThresholdBytes,
+                                               long checkpointIntervalSeconds) throws IOException {
+        if (wal != null) {
+            return;
+        }
+        if (loadFailed) {
+            throw new IOException("dữ liệu trên đĩa chưa được tải thành công");
+        }
+        WriteAheadLog log = WriteAheadLog.open(Paths.get(dataFile), fsyncIntervalMillis);
+        wal = log;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(checkpointIntervalSeconds);
+        long[] lastRecords = {0};
+        long[] lastCheckpoint = {System.nanoTime()};
+        checkpointExecutor().scheduleWithFixedDelay(() -> {
+            long records = log.getRecordCount();
+            boolean full = log.getSegmentSize() >= compactThresholdBytes;
+            boolean due = intervalNanos > 0 && records > lastRecords[0]
+                    && System.nanoTime() - lastCheckpoint[0] >= intervalNanos;
+            if (!full && !due) {
+                return;
+            }
+            try {
+                long bytes = checkpoint();
+                System.out.println("[Checkpoint] Đã ghi snapshot " + dataFile + " (" + bytes + " byte, "
+                        + checkpointMetrics.getLastDurationNanos() / 1_000_000 + " ms)");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[Checkpoint] Lỗi khi ghi snapshot: " + e.getMessage());
+            }
+            lastRecords[0] = records;
+            lastCheckpoint[0] = System.nanoTime();
+        }, CHECKPOINT_CHECK_SECONDS, CHECKPOINT_CHECK_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    // Dừng luồng checkpoint và ghi nốt WAL (không ghi snapshot)
+    @Override
+    public synchronized void close() throws IOException {
+        if (checkpointExecutor != null) {
+            checkpointExecutor.shutdown();
+            try {
+                checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkpointExecutor = null;
+        }
+        if (wal != null) {
+            synchronized (checkpointLock) {
+                wal.close();
+                wal = null;
+            }
+        }
+    }
+    
+    // Chờ bản ghi WAL xuống đĩa (khi bật WAL); trả về thao tác có được áp dụng hay không
+    private boolean awaitDurable(long lsn) {
+        WriteAheadLog log = wal;
+        if (log != null && lsn > 0) {
+            log.awaitDurable(lsn);
+        }
+        return lsn >= 0;
+    }
+    
+    // Áp dụng lại các bản ghi WAL khi khởi động, không ghi ngược vào WAL
+    private final class Replayer implements WriteAheadLog.Handler {
+        @Override public void addUser(User user) { BlogManager.this.addUser(user, null); }
+        @Override public void addPost(Post post) { BlogManager.this.addPost(post, null); }
+        @Override public void updatePost(Post post) { BlogManager.this.updatePost(post, null); }
+        @Override public void deletePost(int postId) { BlogManager.this.deletePost(postId, null); }
+        @Override public void addComment(Comment comment) { BlogManager.this.addComment(comment, null); }
+        @Override public void deleteComment(int commentId) { BlogManager.this.deleteComment(commentId, null); }
+    }
+    
+    // File định dạng cũ (ObjectOutputStream ghi nguyên BlogData)
+    private static SnapshotData readLegacyFile(Path path) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            BlogData data = (BlogData) in.readObject();
+            return new SnapshotData(data.getUsers(), data.getPosts(), data.getComments());
+        }
+    }
+    
+    // Nâng cấp một lần: giữ bản cũ ở <file>.legacy rồi ghi lại theo định dạng nhị phân mới
+    private static void upgradeLegacyFile(Path path, SnapshotData data) throws IOException {
+        Path backup = path.resolveSibling(path.getFileName() + ".legacy");
+        Files.copy(path, backup, StandardCopyOption.REPLACE_EXISTING);
+        SnapshotCodec.write(path, data.getUsers(), data.getPosts(), data.getComments());
+        System.out.println("Đã chuyển file dữ liệu sang định dạng mới (bản cũ lưu tại " + backup + ")");
+    }
+    
+
+    // ========== UTILITY METHODS ==========
+    
+    // Cấp id mới (không khóa, không quét dữ liệu); mỗi lần gọi trả về một id khác nhau
+    public int getNextPostId() {
+        return postSequence.incrementAndGet();
+    }
+    
+    public int getNextCommentId() {
+        return commentSequence.incrementAndGet();
+    }
+    
+    public int getNextUserId() {
+        return userSequence.incrementAndGet();
+    }
+    
+    // Bài viết hiện tại của một id; đối tượng này cũng là khóa khi ghi vào bài viết và bình luận của nó
+    private static final class PostSlot {
+        private volatile Post post;
+        // Handle nội dung trong ContentArena (giữ ở đây vì Post có thể bị người gọi setContent)
+        private ContentArena.Handle content;
+        private boolean deleted;
+        
+        PostSlot(Post post) {
+            this.post = post;
+        }
     }
     
     // ========== INNER CLASS FOR SERIALIZATION ==========
     
+    // Chỉ còn dùng để đọc file định dạng cũ (trước khi có SnapshotCodec)
     private static class BlogData implements Serializable {
         private static final long serialVersionUID = 1L;
         private List<User> users;
         private List<Post> posts;
         private List<Comment> comments;
         
-        public BlogData(List<User> users, List<Post> posts, List<Comment> comments) {
+        public BlogData(Collection<User> users, Collection<Post> posts, Collection<Comment> comments) {
             this.users = new ArrayList<>(users);
             this.posts = new ArrayList<>(posts);
             this.comments = new ArrayList<>(comments);
@@ -237,7 +783,16 @@ public class BlogManager {
     
     public static void main(String[] args) {
         BlogManager app = new BlogManager();
-        app.loadFromFile();
+        try {
+            // Tải thất bại thì không bật WAL/checkpoint tự động, tránh ghi đè dữ liệu chưa đọc được
+            if (app.loadFromFile()) {
+                app.openWriteAheadLog();
+            } else {
+                System.err.println("Không bật WAL, thay đổi chỉ được lưu khi chọn 7");
+            }
+        } catch (IOException e) {
+            System.err.println("Không mở được WAL, thay đổi chỉ được lưu khi chọn 7: " + e.getMessage());
+        }
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
         User loggedIn = null;
@@ -258,7 +813,7 @@ public class BlogManager {
             System.out.println("8. Đăng ký tài khoản (owner)");
             System.out.println("9. Đăng nhập");
             System.out.println("10.Đăng xuất");
-            System.out.println("11.Mô phỏng đa luồng thêm bình luận");
+            System.out.println("11.Benchmark tranh chấp đa luồng (ghi/đọc bình luận)");
             System.out.println("0. Thoát");
             System.out.print("Chọn: ");
             String choice = scanner.nextLine();
@@ -424,88 +979,31 @@ public class BlogManager {
                 loggedIn = null;
                 System.out.println("Đã đăng xuất.");
             } else if ("11".equals(choice)) {
-                // Task 4: Multithreading simulation
-                System.out.print("Nhập postId: ");
-                String sPost = scanner.nextLine();
-                int postId = 0;
-                try {
-                    postId = Integer.parseInt(sPost);
-                } catch (NumberFormatException e) {
-                    System.out.println("Giá trị không hợp lệ");
-                    continue;
-                }
-                Optional<Post> op = app.getPostById(postId);
-                if (!op.isPresent()) {
-                    System.out.println("Không tìm thấy bài viết");
-                    continue;
+                // Chạy trên BlogManager riêng trong bộ nhớ, không đụng tới dữ liệu đang mở
+                int[] values = new int[3];
+                String[] prompts = {"Số luồng ghi: ", "Số luồng đọc: ", "Số giây mỗi chiến lược: "};
+                boolean valid = true;
+                for (int i = 0; i < prompts.length && valid; i++) {
+                    System.out.print(prompts[i]);
+                    try {
+                        values[i] = Integer.parseInt(scanner.nextLine().trim());
+                    } catch (NumberFormatException e) {
+                        valid = false;
+                    }
                 }
-                System.out.print("Số luồng: ");
-                String sThreads = scanner.nextLine();
-                int numThreads = 0;
-                try {
-                    numThreads = Integer.parseInt(sThreads);
-                } catch (NumberFormatException e) {
+                if (!valid || values[0] < 1 || values[1] < 0 || values[2] < 1) {
                     System.out.println("Giá trị không hợp lệ");
                     continue;
                 }
-                System.out.print("Số bình luận mỗi luồng: ");
-                String sEach = scanner.nextLine();
-                int commentsPerThread = 0;
+                ContentionBenchmark benchmark = new ContentionBenchmark(values[0], values[1], 1000, 1000,
+                        TimeUnit.SECONDS.toMillis(values[2]));
                 try {
-                    commentsPerThread = Integer.parseInt(sEach);
-                } catch (NumberFormatException e) {
-                    System.out.println("Giá trị không hợp lệ");
-                    continue;
-                }
-                System.out.print("Dùng synchronized? (y/n): ");
-                String useSyncStr = scanner.nextLine();
-                boolean useSync = "y".equalsIgnoreCase(useSyncStr);
-
-                final int postIdFinal = postId;
-                final int commentsPerThreadFinal = commentsPerThread;
-                final boolean useSyncFinal = useSync;
-                Thread[] arr = new Thread[numThreads];
-                for (int i = 0; i < numThreads; i++) {
-                    final int threadIndex = i;
-                    Runnable r = new Runnable() {
-                        public void run() {
-                            for (int k = 0; k < commentsPerThreadFinal; k++) {
-                                Comment cmt = new Comment();
-                                synchronized (app) {
-                                    // Bảo đảm ID duy nhất khi chạy song song trong in-memory
-                                    cmt.setId(app.getNextCommentId());
-                                }
-                                cmt.setPostId(postIdFinal);
-                                cmt.setAuthorName("User-" + threadIndex);
-                                cmt.setContent("Cmt-" + k + " từ luồng " + threadIndex);
-                                cmt.setCreatedAt(LocalDateTime.now());
-                                if (useSyncFinal) {
-                                    app.addCommentSynchronized(cmt);
-                                } else {
-                                    app.addComment(cmt);
-                                }
-                                try {
-                                    Thread.sleep(5);
-                                } catch (InterruptedException e) {
-                                    // ignore
-                                }
-                            }
-                        }
-                    };
-                    arr[i] = new Thread(r);
+                    benchmark.printReport(benchmark.run(EnumSet.allOf(ContentionBenchmark.Strategy.class)),
+                            System.out);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    System.out.println("Đã dừng benchmark");
                 }
-                for (int i = 0; i < numThreads; i++) {
-                    arr[i].start();
-                }
-                for (int i = 0; i < numThreads; i++) {
-                    try {
-                        arr[i].join();
-                    } catch (InterruptedException e) {
-                        // ignore
-                    }
-                }
-                List<Comment> cs = app.getCommentsByPostId(postId);
-                System.out.println("Hoàn tất. Tổng bình luận của post " + postId + ": " + cs.size());
             } else if ("0".equals(choice)) {
                 running = false;
             } else {
@@ -513,6 +1011,11 @@ public class BlogManager {
             }
         }
         scanner.close();
+        try {
+            app.close();
+        } catch (IOException e) {
+            System.err.println("Lỗi khi đóng WAL: " + e.getMessage());
+        }
         System.out.println("Tạm biệt!");
     }
 }
@@ -0,0 +1,471 @@
+package org.example.service;
+
+import org.example.model.Comment;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Kho bình luận dạng cột (struct-of-arrays): mỗi bình luận là một hàng trong các mảng nguyên thủy
+// (id, postId, mã tác giả, thời điểm tạo dạng epoch millis UTC) cộng một tham chiếu tới nội dung.
+// Tên tác giả lặp lại rất nhiều ("User-3") nên chỉ lưu một lần trong từ điển, mỗi hàng giữ mã int.
+// Comment trả ra ngoài là bản dựng lại từ các cột lúc đọc, sửa nó không ảnh hưởng tới kho.
+//
+// Bình luận của cùng một bài nằm chung một stripe (chọn theo postId), mỗi stripe có khóa đọc/ghi riêng:
+// bình luận vào các bài khác stripe không chờ nhau, đọc không chặn đọc.
+// Chỉ mục id -> vị trí dùng các trang AtomicIntegerArray (id cấp tăng dần nên các trang gần như kín).
+final class CommentStore {
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    // Thời điểm tạo null
+    private static final long NO_TIME = Long.MIN_VALUE;
+    // Tác giả null
+    private static final int NO_AUTHOR = -1;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AuthorDictionary authors = new AuthorDictionary();
+    // Trang i chứa vị trí của id [i * PAGE_SIZE, (i + 1) * PAGE_SIZE): (row << STRIPE_BITS | stripe) + 1, 0 = không có
+    private volatile AtomicIntegerArray[] idPages = new AtomicIntegerArray[16];
+    private final AtomicInteger size = new AtomicInteger();
+
+    CommentStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    // ========== GHI ==========
+
+    // Thêm mới hoặc ghi đè bình luận cùng id
+    void put(Comment comment) {
+        int id = checkId(comment.getId());
+        int stripeIndex = stripeOf(comment.getPostId());
+        int old = location(id);
+        if (old != 0 && (old - 1 & STRIPES - 1) != stripeIndex) {
+            // Đổi sang bài viết ở stripe khác (chỉ gặp khi phát lại WAL): xóa hàng cũ trước
+            remove(id);
+        }
+        Stripe stripe = stripes[stripeIndex];
+        stripe.lock.writeLock().lock();
+        try {
+            int current = location(id);
+            if (current != 0 && (current - 1 & STRIPES - 1) == stripeIndex) {
+                stripe.removeRow((current - 1) >>> STRIPE_BITS);
+            } else {
+                size.incrementAndGet();
+            }
+            int row = stripe.allocate();
+            stripe.ids[row] = id;
+            stripe.postIds[row] = comment.getPostId();
+            stripe.authors[row] = authors.codeOf(comment.getAuthorName());
+            stripe.createdAt[row] = toMillis(comment.getCreatedAt());
+            stripe.contents[row] = comment.getContent();
+            stripe.byPost.computeIfAbsent(comment.getPostId(), k -> new RowList()).insert(row, stripe.ids);
+            // Ghi các cột xong mới công bố vị trí (ghi volatile) cho luồng đọc không giữ khóa stripe
+            setLocation(id, (row << STRIPE_BITS | stripeIndex) + 1);
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // Trả về bình luận đã xóa, null nếu không có
+    Comment remove(int id) {
+        int loc = location(id);
+        if (loc == 0) {
+            return null;
+        }
+        Stripe stripe = stripes[loc - 1 & STRIPES - 1];
+        stripe.lock.writeLock().lock();
+        try {
+            // Luồng khác có thể đã xóa/chuyển bình luận này trước khi lấy được khóa
+            if (location(id) != loc) {
+                return null;
+            }
+            int row = (loc - 1) >>> STRIPE_BITS;
+            Comment ketQua = stripe.view(row, authors);
+            stripe.removeRow(row);
+            setLocation(id, 0);
+            size.decrementAndGet();
+            return ketQua;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    // Xóa mọi bình luận của một bài viết, trả về các bình luận đã xóa theo thứ tự id
+    List<Comment> removeByPost(int postId) {
+        Stripe stripe = stripes[stripeOf(postId)];
+        stripe.lock.writeLock().lock();
+        try {
+            RowList list = stripe.byPost.get(postId);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            List<Comment> ketQua = new ArrayList<>(list.size);
+            for (int row : Arrays.copyOf(list.rows, list.size)) {
+                ketQua.add(stripe.view(row, authors));
+                setLocation(stripe.ids[row], 0);
+                stripe.removeRow(row);
+                size.decrementAndGet();
+            }
+            return ketQua;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+        }
+        try {
+            for (Stripe stripe : stripes) {
+                stripe.reset();
+            }
+            idPages = new AtomicIntegerArray[16];
+            size.set(0);
+            authors.clear();
+        } finally {
+            for (Stripe stripe : stripes) {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ========== ĐỌC ==========
+
+    Comment get(int id) {
+        int loc = location(id);
+        if (loc == 0) {
+            return null;
+        }
+        Stripe stripe = stripes[loc - 1 & STRIPES - 1];
+        stripe.lock.readLock().lock();
+        try {
+            // Hàng có thể đã bị xóa và dùng lại cho bình luận khác trước khi lấy được khóa
+            return location(id) == loc ? stripe.view((loc - 1) >>> STRIPE_BITS, authors) : null;
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    // Bình luận của một bài viết theo thứ tự id
+    List<Comment> getByPost(int postId) {
+        Stripe stripe = stripes[stripeOf(postId)];
+        stripe.lock.readLock().lock();
+        try {
+            RowList list = stripe.byPost.get(postId);
+            if (list == null) {
+                return new ArrayList<>();
+            }
+            List<Comment> ketQua = new ArrayList<>(list.size);
+            for (int i = 0; i < list.size; i++) {
+                ketQua.add(stripe.view(list.rows[i], authors));
+            }
+            return ketQua;
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    // Duyệt theo thứ tự id tới maxId; mỗi bình luận được đọc lúc duyệt tới (không chụp toàn bộ kho),
+    // bình luận bị xóa trước khi duyệt tới thì bỏ qua. Giới hạn maxId để việc duyệt không phải
+    // đuổi theo các bình luận được thêm liên tục trong lúc duyệt
+    Iterable<Map.Entry<Integer, Comment>> entries(int maxId) {
+        return () -> new Iterator<>() {
+            private final AtomicIntegerArray[] pages = idPages;
+            private final long end = Math.min((long) maxId + 1, (long) pages.length * PAGE_SIZE);
+            private int nextId = 0;
+            private Map.Entry<Integer, Comment> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && nextId < end) {
+                    AtomicIntegerArray page = pages[nextId >>> PAGE_BITS];
+                    if (page == null) {
+                        nextId += PAGE_SIZE;
+                        continue;
+                    }
+                    int id = nextId++;
+                    if (page.get(id & PAGE_SIZE - 1) != 0) {
+                        Comment comment = get(id);
+                        if (comment != null) {
+                            next = new AbstractMap.SimpleImmutableEntry<>(id, comment);
+                        }
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<Integer, Comment> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<Integer, Comment> ketQua = next;
+                next = null;
+                return ketQua;
+            }
+        };
+    }
+
+    // Ước lượng bộ nhớ của các cột, danh sách theo bài viết và chỉ mục id (không tính nội dung bình luận)
+    long estimateBytes() {
+        long ketQua = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                // id, postId, mã tác giả, createdAt, tham chiếu nội dung, ô trong danh sách của bài viết
+                ketQua += (long) stripe.ids.length * (4 + 4 + 4 + 8 + 4 + 4);
+                ketQua += (long) stripe.byPost.size() * 64;
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        for (AtomicIntegerArray page : idPages) {
+            if (page != null) {
+                ketQua += 4L * PAGE_SIZE;
+            }
+        }
+        return ketQua;
+    }
+
+    @Override
+    public String toString() {
+        int count = size();
+        long bytes = estimateBytes();
+        return String.format("Bình luận: %d, %d tác giả khác nhau, cột + chỉ mục ~%d KB (%.1f byte/bình luận, chưa tính nội dung)",
+                count, authors.size(), bytes / 1024, count == 0 ? 0.0 : (double) bytes / count);
+    }
+
+    // ========== NỘI BỘ ==========
+
+    private static int checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID bình luận không hợp lệ: " + id);
+        }
+        return id;
+    }
+
+    private static int stripeOf(int postId) {
+        return (postId ^ postId >>> 16) & STRIPES - 1;
+    }
+
+    private int location(int id) {
+        if (id < 0) {
+            return 0;
+        }
+        AtomicIntegerArray[] pages = idPages;
+        int page = id >>> PAGE_BITS;
+        if (page >= pages.length || pages[page] == null) {
+            return 0;
+        }
+        return pages[page].get(id & PAGE_SIZE - 1);
+    }
+
+    private void setLocation(int id, int loc) {
+        int page = id >>> PAGE_BITS;
+        AtomicIntegerArray[] pages = idPages;
+        if (page >= pages.length || pages[page] == null) {
+            if (loc == 0) {
+                return;
+            }
+            pages = growPages(page);
+        }
+        pages[page].set(id & PAGE_SIZE - 1, loc);
+    }
+
+    // Thêm trang mới hiếm khi xảy ra nên khóa chung; trang cũ giữ nguyên, chỉ thay mảng thư mục
+    private synchronized AtomicIntegerArray[] growPages(int page) {
+        AtomicIntegerArray[] pages = idPages;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(pages.length * 2, page + 1));
+        }
+        if (pages[page] == null) {
+            if (pages == idPages) {
+                pages = pages.clone();
+            }
+            pages[page] = new AtomicIntegerArray(PAGE_SIZE);
+        }
+        idPages = pages;
+        return pages;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? NO_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    // Các cột của một stripe; mọi truy cập giữ lock của stripe
+    private static final class Stripe {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private int[] ids;
+        private int[] postIds;
+        private int[] authors;
+        private long[] createdAt;
+        private String[] contents;
+        // Số hàng đã cấp (kể cả hàng đã xóa nằm trong free)
+        private int rows;
+        private int[] free;
+        private int freeCount;
+        private final Map<Integer, RowList> byPost = new HashMap<>();
+
+        Stripe() {
+            reset();
+        }
+
+        void reset() {
+            ids = new int[16];
+            postIds = new int[16];
+            authors = new int[16];
+            createdAt = new long[16];
+            contents = new String[16];
+            rows = 0;
+            free = new int[16];
+            freeCount = 0;
+            byPost.clear();
+        }
+
+        // Ưu tiên dùng lại hàng đã xóa, hết thì mở rộng mảng gấp đôi
+        int allocate() {
+            if (freeCount > 0) {
+                return free[--freeCount];
+            }
+            if (rows == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                postIds = Arrays.copyOf(postIds, capacity);
+                authors = Arrays.copyOf(authors, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                contents = Arrays.copyOf(contents, capacity);
+            }
+            return rows++;
+        }
+
+        void removeRow(int row) {
+            RowList list = byPost.get(postIds[row]);
+            if (list != null) {
+                list.remove(row, ids);
+                if (list.size == 0) {
+                    byPost.remove(postIds[row]);
+                }
+            }
+            // Bỏ tham chiếu nội dung để GC thu hồi ngay, không chờ hàng được dùng lại
+            contents[row] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, free.length * 2);
+            }
+            free[freeCount++] = row;
+        }
+
+        Comment view(int row, AuthorDictionary dictionary) {
+            return new Comment(ids[row], postIds[row], dictionary.nameOf(authors[row]), contents[row],
+                    fromMillis(createdAt[row]));
+        }
+    }
+
+    // Các hàng của một bài viết, sắp theo id bình luận
+    private static final class RowList {
+        private int[] rows = new int[4];
+        private int size;
+
+        // id cấp tăng dần nên gần như luôn thêm vào cuối
+        void insert(int row, int[] ids) {
+            int index = size;
+            while (index > 0 && ids[rows[index - 1]] > ids[row]) {
+                index--;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            System.arraycopy(rows, index, rows, index + 1, size - index);
+            rows[index] = row;
+            size++;
+        }
+
+        // Tìm nhị phân theo id của hàng
+        void remove(int row, int[] ids) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int id = ids[rows[mid]];
+                if (id < ids[row]) {
+                    low = mid + 1;
+                } else if (id > ids[row]) {
+                    high = mid - 1;
+                } else {
+                    System.arraycopy(rows, mid + 1, rows, mid, size - mid - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Từ điển tên tác giả: tên -> mã int và mã -> tên. Chỉ thêm, không xóa (trừ khi clear)
+    private static final class AuthorDictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[16];
+        private int count;
+
+        int codeOf(String name) {
+            if (name == null) {
+                return NO_AUTHOR;
+            }
+            Integer code = codes.get(name);
+            return code != null ? code : add(name);
+        }
+
+        // Tên mới: ghi vào mảng names trước rồi mới đưa vào codes, nên ai thấy mã cũng đọc được tên
+        private synchronized int add(String name) {
+            Integer code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+            String[] current = names;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, count * 2);
+            }
+            current[count] = name;
+            names = current;
+            codes.put(name, count);
+            return count++;
+        }
+
+        String nameOf(int code) {
+            return code == NO_AUTHOR ? null : names[code];
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized void clear() {
+            codes.clear();
+            names = new String[16];
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package org.example.service;
+
+import org.example.metrics.LatencyHistogram;
+import org.example.model.Comment;
+import org.example.model.Post;
+
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Đo tranh chấp khi ghi/đọc bình luận: N luồng ghi và M luồng đọc (bình luận của một bài)
+// chạy liên tục không nghỉ trên cùng một tập bài viết, lần lượt với từng chiến lược:
+//   global        : khóa chung của BlogManager như Task 4 (addCommentSynchronized); id lấy từ một
+//                   bộ đếm int thường trong khóa, đọc cũng nằm trong khóa
+//   per-post      : addComment của BlogManager, khóa theo bài viết rồi khóa stripe của CommentStore;
+//                   id cấp bằng CAS
+//   store-striped : chỉ một CommentStore (không có BlogManager): khóa đọc/ghi theo stripe; id cấp bằng CAS
+//   lock-free     : không khóa: mỗi bài viết là một danh sách liên kết bất biến, thêm bình luận bằng CAS
+//                   lên đầu danh sách, đọc duyệt danh sách hiện tại; id cấp bằng CAS
+// Hai chiến lược sau chỉ tồn tại trong benchmark (không ghi WAL, không qua cổng checkpoint) để so sánh
+// chi phí khóa; dữ liệu thật luôn đi qua BlogManager.
+// Mỗi chiến lược chạy trên dữ liệu mới, chỉ trong bộ nhớ (không đọc/ghi file, không bật WAL).
+// Số liệu trong giai đoạn khởi động (warm-up) không được tính. Sau mỗi lượt kiểm tra id:
+// id bị cấp trùng, bình luận ghi thành công nhưng không có trong kho (mất), bình luận xuất hiện hai lần.
+public class ContentionBenchmark {
+    public enum Strategy {
+        GLOBAL("global"),
+        PER_POST("per-post"),
+        STORE_STRIPED("store-striped"),
+        LOCK_FREE("lock-free");
+
+        private final String key;
+
+        Strategy(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final int writers;
+    private final int readers;
+    private final int posts;
+    private final long warmupMillis;
+    private final long durationMillis;
+
+    public ContentionBenchmark(int writers, int readers, int posts, long warmupMillis, long durationMillis) {
+        if (writers < 1 || readers < 0 || posts < 1 || durationMillis <= 0) {
+            throw new IllegalArgumentException("Tham số không hợp lệ: cần ít nhất 1 luồng ghi, 1 bài viết và thời gian > 0");
+        }
+        this.writers = writers;
+        this.readers = readers;
+        this.posts = posts;
+        this.warmupMillis = warmupMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    // Tham số: [số luồng ghi] [số luồng đọc] [số giây mỗi chiến lược] [số bài viết]
+    public static void main(String[] args) throws InterruptedException {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        int posts = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        ContentionBenchmark benchmark = new ContentionBenchmark(writers, readers, posts, 1000,
+                TimeUnit.SECONDS.toMillis(seconds));
+        benchmark.printReport(benchmark.run(EnumSet.allOf(Strategy.class)), System.out);
+    }
+
+    public List<Result> run(Set<Strategy> strategies) throws InterruptedException {
+        List<Result> ketQua = new ArrayList<>();
+        for (Strategy strategy : strategies) {
+            System.out.printf("Chạy %s: %d luồng ghi, %d luồng đọc, %d bài viết, %.1f s...%n",
+                    strategy.getKey(), writers, readers, posts, durationMillis / 1000.0);
+            ketQua.add(run(strategy));
+        }
+        return ketQua;
+    }
+
+    // ========== CHẠY MỘT CHIẾN LƯỢC ==========
+
+    public Result run(Strategy strategy) throws InterruptedException {
+        Target target = switch (strategy) {
+            case GLOBAL -> new GlobalTarget(newManager());
+            case PER_POST -> new PerPostTarget(newManager());
+            case STORE_STRIPED -> new StoreTarget();
+            case LOCK_FREE -> new LockFreeTarget(posts);
+        };
+
+        Worker[] workers = new Worker[writers + readers];
+        CountDownLatch ready = new CountDownLatch(workers.length);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(target, i < writers, i, ready, go);
+            workers[i].thread.start();
+        }
+        ready.await();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long measureUntil = measureFrom + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        for (Worker worker : workers) {
+            worker.measureFrom = measureFrom;
+            worker.measureUntil = measureUntil;
+        }
+        go.countDown();
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+        return collect(strategy, target, workers);
+    }
+
+    private BlogManager newManager() {
+        // Không gọi loadFromFile/saveToFile nên file dữ liệu không được tạo
+        BlogManager app = new BlogManager("contention-benchmark.dat");
+        for (int i = 0; i < posts; i++) {
+            app.addPost(new Post(app.getNextPostId(), "Bài viết " + (i + 1), "Nội dung", 1,
+                    LocalDateTime.now(), null));
+        }
+        return app;
+    }
+
+    // Gộp số liệu của các luồng và kiểm tra id
+    private Result collect(Strategy strategy, Target target, Worker[] workers) {
+        LatencyHistogram writeLatency = new LatencyHistogram();
+        LatencyHistogram readLatency = new LatencyHistogram();
+        BitSet assigned = new BitSet();
+        BitSet written = new BitSet();
+        long duplicateIds = 0;
+        long failedWrites = 0;
+        for (Worker worker : workers) {
+            (worker.writer ? writeLatency : readLatency).add(worker.latency);
+            failedWrites += worker.failed;
+            for (int i = 0; i < worker.idCount; i++) {
+                int id = worker.ids[i];
+                if (assigned.get(id)) {
+                    duplicateIds++;
+                }
+                assigned.set(id);
+                if (worker.succeeded[i]) {
+                    written.set(id);
+                }
+            }
+        }
+        BitSet stored = new BitSet();
+        long storedTwice = 0;
+        for (int postId = 1; postId <= posts; postId++) {
+            for (Comment comment : target.read(postId)) {
+                if (stored.get(comment.getId())) {
+                    storedTwice++;
+                }
+                stored.set(comment.getId());
+            }
+        }
+        BitSet lost = (BitSet) written.clone();
+        lost.andNot(stored);
+        return new Result(strategy, durationMillis / 1000.0, writeLatency, readLatency, failedWrites,
+                duplicateIds + storedTwice, lost.cardinality(), stored.cardinality());
+    }
+
+    // Một luồng ghi hoặc đọc; giữ số liệu riêng, gộp lại sau khi chạy xong để việc đo không tự gây tranh chấp
+    private final class Worker implements Runnable {
+        private final Target target;
+        private final boolean writer;
+        private final int index;
+        private final CountDownLatch ready;
+        private final CountDownLatch go;
+        private final Thread thread;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private volatile long measureFrom;
+        private volatile long measureUntil;
+        // Mọi id đã cấp (kể cả giai đoạn warm-up) và ghi có thành công không
+        private int[] ids = new int[1024];
+        private boolean[] succeeded = new boolean[1024];
+        private int idCount;
+        private long failed;
+
+        Worker(Target target, boolean writer, int index, CountDownLatch ready, CountDownLatch go) {
+            this.target = target;
+            this.writer = writer;
+            this.index = index;
+            this.ready = ready;
+            this.go = go;
+            this.thread = new Thread(this, (writer ? "bench-writer-" : "bench-reader-") + index);
+        }
+
+        @Override
+        public void run() {
+            ready.countDown();
+            try {
+                go.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long from = measureFrom;
+            long until = measureUntil;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String author = "User-" + index;
+            String content = "Bình luận từ luồng " + index;
+            while (true) {
+                int postId = 1 + random.nextInt(posts);
+                long t0 = System.nanoTime();
+                if (t0 >= until) {
+                    return;
+                }
+                if (writer) {
+                    write(postId, author, content);
+                } else {
+                    target.read(postId);
+                }
+                long elapsed = System.nanoTime() - t0;
+                if (t0 >= from) {
+                    latency.record(elapsed);
+                }
+            }
+        }
+
+        private void write(int postId, String author, String content) {
+            int ketQua = target.write(postId, author, content);
+            int id = Math.abs(ketQua);
+            boolean ok = ketQua > 0;
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, idCount * 2);
+                succeeded = Arrays.copyOf(succeeded, idCount * 2);
+            }
+            ids[idCount] = id;
+            succeeded[idCount] = ok;
+            idCount++;
+            if (!ok) {
+                failed++;
+            }
+        }
+
+    }
+
+    // ========== CÁC CHIẾN LƯỢC ==========
+
+    // Nơi ghi/đọc bình luận của một chiến lược
+    private interface Target {
+        // Cấp id rồi ghi bình luận; trả về id, hoặc -id nếu ghi không thành công
+        int write(int postId, String author, String content);
+
+        List<Comment> read(int postId);
+    }
+
+    private static final class GlobalTarget implements Target {
+        private final BlogManager app;
+        // Bộ đếm id (app chưa có bình luận nào), chỉ tăng trong khóa của app
+        private int sequence;
+
+        GlobalTarget(BlogManager app) {
+            this.app = app;
+        }
+
+        @Override
+        public int write(int postId, String author, String content) {
+            // Cùng monitor với addCommentSynchronized (khóa lại được), id cấp trong khóa
+            synchronized (app) {
+                int id = ++sequence;
+                boolean ok = app.addCommentSynchronized(new Comment(id, postId, author, content, LocalDateTime.now()));
+                return ok ? id : -id;
+            }
+        }
+
+        @Override
+        public List<Comment> read(int postId) {
+            synchronized (app) {
+                return app.getCommentsByPostId(postId);
+            }
+        }
+    }
+
+    private static final class PerPostTarget implements Target {
+        private final BlogManager app;
+
+        PerPostTarget(BlogManager app) {
+            this.app = app;
+        }
+
+        @Override
+        public int write(int postId, String author, String content) {
+            int id = app.getNextCommentId();
+            boolean ok = app.addComment(new Comment(id, postId, author, content, LocalDateTime.now()));
+            return ok ? id : -id;
+        }
+
+        @Override
+        public List<Comment> read(int postId) {
+            return app.getCommentsByPostId(postId);
+        }
+    }
+
+    // Mọi bài viết 1..posts luôn tồn tại nên không cần kiểm tra bài viết
+    private static final class StoreTarget implements Target {
+        private final CommentStore store = new CommentStore();
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public int write(int postId, String author, String content) {
+            int id = sequence.incrementAndGet();
+            store.put(new Comment(id, postId, author, content, LocalDateTime.now()));
+            return id;
+        }
+
+        @Override
+        public List<Comment> read(int postId) {
+            return store.getByPost(postId);
+        }
+    }
+
+    private static final class LockFreeTarget implements Target {
+        // Đầu danh sách bình luận (mới nhất trước) của từng bài viết
+        private final AtomicReferenceArray<Node> heads;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        LockFreeTarget(int posts) {
+            this.heads = new AtomicReferenceArray<>(posts + 1);
+        }
+
+        @Override
+        public int write(int postId, String author, String content) {
+            int id = sequence.incrementAndGet();
+            Comment comment = new Comment(id, postId, author, content, LocalDateTime.now());
+            Node head;
+            do {
+                head = heads.get(postId);
+            } while (!heads.compareAndSet(postId, head, new Node(comment, head)));
+            return id;
+        }
+
+        // Bản sao theo thứ tự thêm, giống getCommentsByPostId
+        @Override
+        public List<Comment> read(int postId) {
+            List<Comment> ketQua = new ArrayList<>();
+            for (Node node = heads.get(postId); node != null; node = node.next()) {
+                Comment c = node.comment();
+                ketQua.add(new Comment(c.getId(), c.getPostId(), c.getAuthorName(), c.getContent(), c.getCreatedAt()));
+            }
+            Collections.reverse(ketQua);
+            return ketQua;
+        }
+
+        private record Node(Comment comment, Node next) {
+        }
+    }
+
+    // ========== BÁO CÁO ==========
+
+    public void printReport(List<Result> results, PrintStream out) {
+        out.println("\n--- KẾT QUẢ (độ trễ tính bằng µs) ---");
+        out.printf("%-13s %-5s %10s %11s %8s %8s %8s %8s %8s %9s%n",
+                "Chiến lược", "Loại", "Số lượt", "ops/s", "mean", "p50", "p90", "p99", "p99.9", "max");
+        for (Result r : results) {
+            printRow(out, r.getStrategy().getKey(), "ghi", r.getWriteLatency(), r.getSeconds());
+            if (readers > 0) {
+                printRow(out, r.getStrategy().getKey(), "đọc", r.getReadLatency(), r.getSeconds());
+            }
+        }
+        out.println("\n--- KIỂM TRA ID ---");
+        out.printf("%-13s %12s %10s %8s %8s%n", "Chiến lược", "Đã lưu", "Ghi lỗi", "Trùng", "Mất");
+        for (Result r : results) {
+            out.printf("%-13s %12d %10d %8d %8d%n", r.getStrategy().getKey(), r.getStoredComments(),
+                    r.getFailedWrites(), r.getDuplicateIds(), r.getLostIds());
+        }
+    }
+
+    private static void printRow(PrintStream out, String strategy, String kind, LatencyHistogram h, double seconds) {
+        out.printf("%-13s %-5s %10d %11.0f %8.2f %8.2f %8.2f %8.2f %8.2f %9.2f%n",
+                strategy, kind, h.getCount(), h.getCount() / seconds, h.getMean() / 1e3,
+                h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(90) / 1e3,
+                h.getValueAtPercentile(99) / 1e3, h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3);
+    }
+
+    // Kết quả một chiến lược
+    public static final class Result {
+        private final Strategy strategy;
+        private final double seconds;
+        private final LatencyHistogram writeLatency;
+        private final LatencyHistogram readLatency;
+        private final long failedWrites;
+        private final long duplicateIds;
+        private final long lostIds;
+        private final int storedComments;
+
+        Result(Strategy strategy, double seconds, LatencyHistogram writeLatency, LatencyHistogram readLatency,
+               long failedWrites, long duplicateIds, long lostIds, int storedComments) {
+            this.strategy = strategy;
+            this.seconds = seconds;
+            this.writeLatency = writeLatency;
+            this.readLatency = readLatency;
+            this.failedWrites = failedWrites;
+            this.duplicateIds = duplicateIds;
+            this.lostIds = lostIds;
+            this.storedComments = storedComments;
+        }
+
+        public Strategy getStrategy() { return strategy; }
+        public double getSeconds() { return seconds; }
+        public LatencyHistogram getWriteLatency() { return writeLatency; }
+        public LatencyHistogram getReadLatency() { return readLatency; }
+        public long getFailedWrites() { return failedWrites; }
+        // Id cấp trùng cộng bình luận xuất hiện hai lần trong kho
+        public long getDuplicateIds() { return duplicateIds; }
+        // Ghi thành công nhưng không có trong kho
+        public long getLostIds() { return lostIds; }
+        public int getStoredComments() { return storedComments; }
+        public double getWriteOpsPerSecond() { return writeLatency.getCount() / seconds; }
+        public double getReadOpsPerSecond() { return readLatency.getCount() / seconds; }
+    }
+}
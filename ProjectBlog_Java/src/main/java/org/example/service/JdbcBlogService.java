@@ -1,5 +1,7 @@
 package org.example.service;
 
+import org.example.dao.CacheStats;
+import org.example.dao.CachingPostDao;
 import org.example.dao.UserDao;
 import org.example.dao.PostDao;
 import org.example.dao.CommentDao;
@@ -8,23 +10,45 @@ import org.example.dao.jdbc.JdbcPostDao;
 import org.example.dao.jdbc.JdbcCommentDao;
 import org.example.model.User;
 import org.example.model.Post;
+import org.example.model.PostSummary;
 import org.example.model.Comment;
 
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public class JdbcBlogService {
+    private static final int SEARCH_LIMIT = 100;
+
     private UserDao userDao;
     private PostDao postDao;
     private CommentDao commentDao;
+    private final CachingPostDao postCache;
+    private final PostSearchIndex searchIndex = new PostSearchIndex();
     
-    public JdbcBlogService() {
+    // Dùng create(): dựng chỉ mục tìm kiếm cần quét bảng posts, không chạy trong constructor
+    private JdbcBlogService() {
         this.userDao = new JdbcUserDao();
-        this.postDao = new JdbcPostDao();
+        // Chi tiết bài viết được đọc qua cache, giảm tải đọc cho SQL Server với bài viết "nóng"
+        this.postCache = new CachingPostDao(new JdbcPostDao());
+        this.postDao = postCache;
         this.commentDao = new JdbcCommentDao();
     }
     
+    // Tạo service và dựng chỉ mục tìm kiếm từ CSDL
+    public static JdbcBlogService create() {
+        JdbcBlogService service = new JdbcBlogService();
+        service.rebuildSearchIndex();
+        return service;
+    }
+    
     // ========== USER MANAGEMENT ==========
     
     public void addUser(User user) {
@@ -35,6 +59,10 @@ public class JdbcBlogService {
         return userDao.findByUsername(username);
     }
     
+    public Optional<User> findUserById(int id) {
+        return userDao.findById(id);
+    }
+    
     public Optional<User> authenticateUser(String username, String password) {
         return ((JdbcUserDao) userDao).findByUsernameAndPassword(username, password);
     }
@@ -43,26 +71,90 @@ public class JdbcBlogService {
     
     public void addPost(Post post) {
         postDao.insert(post);
+        if (post.getId() > 0) {
+            searchIndex.add(post);
+        }
     }
     
     public List<Post> getAllPosts() {
         List<Post> posts = postDao.findAll();
         // Đồng bộ comments cho tất cả posts
-        for (Post post : posts) {
-            List<Comment> comments = commentDao.findByPostId(post.getId());
-            post.setComments(comments);
-        }
+        attachComments(posts);
         return posts;
     }
 
+    // Một trang bài viết (mới nhất trước), không kèm bình luận; truyền bài cuối của trang trước làm mốc
+    public List<Post> getPostPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return postDao.findPage(afterCreatedAt, afterId, limit);
+    }
+
+    // Như getPostPage nhưng chỉ lấy dạng tóm tắt (không tải nội dung) cho màn hình danh sách
+    public List<PostSummary> getPostSummaryPage(LocalDateTime afterCreatedAt, int afterId, int limit) {
+        return postDao.findSummaryPage(afterCreatedAt, afterId, limit);
+    }
+
+    // Tìm qua chỉ mục trong bộ nhớ (không quét bảng posts), kết quả sắp theo độ liên quan.
+    // Từ khóa trống (hoặc chỉ có dấu câu) trả về danh sách rỗng, không còn liệt kê mọi bài viết như
+    // bản LIKE '%...%' cũ; xem tất cả bài viết thì dùng getPostSummaryPage
     public List<Post> searchPosts(String keyword) {
-        List<Post> posts = postDao.searchByKeyword(keyword);
-        for (Post post : posts) {
-            List<Comment> comments = commentDao.findByPostId(post.getId());
-            post.setComments(comments);
+        List<Integer> rankedIds = searchIndex.search(keyword, SEARCH_LIMIT);
+        List<Post> found = postDao.findByIds(rankedIds);
+        Map<Integer, Post> byId = new HashMap<>();
+        for (Post post : found) {
+            byId.put(post.getId(), post);
         }
+        List<Post> posts = new ArrayList<>(rankedIds.size());
+        for (Integer id : rankedIds) {
+            Post post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        attachComments(posts);
         return posts;
     }
+
+    // Như searchPosts nhưng trả về dạng tóm tắt, không tải nội dung và bình luận
+    public List<PostSummary> searchPostSummaries(String keyword) {
+        List<Integer> rankedIds = searchIndex.search(keyword, SEARCH_LIMIT);
+        Map<Integer, PostSummary> byId = new HashMap<>();
+        for (PostSummary summary : postDao.findSummariesByIds(rankedIds)) {
+            byId.put(summary.getId(), summary);
+        }
+        List<PostSummary> ketQua = new ArrayList<>(rankedIds.size());
+        for (Integer id : rankedIds) {
+            PostSummary summary = byId.get(id);
+            if (summary != null) {
+                ketQua.add(summary);
+            }
+        }
+        return ketQua;
+    }
+
+    // Dựng lại chỉ mục tìm kiếm từ toàn bộ bài viết trong CSDL (gọi khi khởi động, hoặc bất cứ lúc nào:
+    // thêm/sửa/xóa bài viết trong lúc dựng được áp dụng lại khi publish);
+    // nội dung được đọc dạng luồng nên không cần nạp cả bảng vào bộ nhớ
+    public void rebuildSearchIndex() {
+        try (PostSearchIndex.Builder builder = searchIndex.newBuilder()) {
+            postDao.forEachPostContent(builder::add);
+            builder.publish();
+        }
+    }
+
+    // Nạp bình luận cho cả danh sách bằng một lượt truy vấn thay vì mỗi bài viết một truy vấn
+    private void attachComments(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            ids.add(post.getId());
+        }
+        Map<Integer, List<Comment>> byPost = commentDao.findByPostIds(ids);
+        for (Post post : posts) {
+            post.setComments(byPost.getOrDefault(post.getId(), new ArrayList<>()));
+        }
+    }
     
     public Optional<Post> getPostById(int id) {
         // Sử dụng JOIN để lấy post và comments trong một query
@@ -70,33 +162,77 @@ public class JdbcBlogService {
     }
     
     public boolean updatePost(Post post) {
-        return postDao.update(post);
+        boolean updated = postDao.update(post);
+        if (updated) {
+            searchIndex.update(post);
+        }
+        return updated;
     }
     
     public boolean deletePost(int id) {
-        return postDao.deleteById(id);
+        boolean deleted = postDao.deleteById(id);
+        if (deleted) {
+            searchIndex.remove(id);
+        }
+        return deleted;
     }
     
     // ========== COMMENT MANAGEMENT ==========
     
     public boolean addComment(Comment comment) {
-        // Kiểm tra post có tồn tại không
-        Optional<Post> post = getPostById(comment.getPostId());
-        if (!post.isPresent()) {
+        // Kiểm tra post tồn tại và thêm bình luận trong một câu lệnh
+        Optional<Comment> inserted = commentDao.insert(comment);
+        if (!inserted.isPresent()) {
             System.out.println("Không thể thêm bình luận: không tìm thấy bài viết với ID=" + comment.getPostId());
             return false;
         }
-        commentDao.insert(comment);
+        postCache.invalidate(comment.getPostId());
         
         return true;
     }
     
+    // Thêm nhiều bình luận một lần: mỗi bài viết chỉ được kiểm tra một lần,
+    // bình luận của bài viết không tồn tại sẽ bị bỏ qua
+    public List<Comment> addComments(Collection<Comment> comments) {
+        Set<Integer> postIds = new HashSet<>();
+        for (Comment comment : comments) {
+            postIds.add(comment.getPostId());
+        }
+        Set<Integer> existing = postDao.findExistingIds(postIds);
+
+        List<Comment> valid = new ArrayList<>();
+        Set<Integer> missing = new HashSet<>();
+        for (Comment comment : comments) {
+            if (existing.contains(comment.getPostId())) {
+                valid.add(comment);
+            } else if (missing.add(comment.getPostId())) {
+                System.out.println("Không thể thêm bình luận: không tìm thấy bài viết với ID=" + comment.getPostId());
+            }
+        }
+        List<Comment> inserted = commentDao.insertAll(valid);
+        if (!inserted.isEmpty()) {
+            for (Integer postId : existing) {
+                postCache.invalidate(postId);
+            }
+        }
+        return inserted;
+    }
+
     public List<Comment> getCommentsByPostId(int postId) {
         return commentDao.findByPostId(postId);
     }
     
     public boolean deleteComment(int id) {
-        return commentDao.deleteById(id);
+        boolean deleted = commentDao.deleteById(id);
+        if (deleted) {
+            // Chỉ biết id bình luận, không biết thuộc bài viết nào nên xóa toàn bộ cache
+            postCache.invalidateAll();
+        }
+        return deleted;
+    }
+
+    public CacheStats getPostCacheStats() {
+        return postCache.getStats();
     }
     
 }
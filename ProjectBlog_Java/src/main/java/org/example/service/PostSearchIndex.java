@@ -0,0 +1,358 @@
+package org.example.service;
+
+import org.example.model.Post;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Chỉ mục đảo ngược (inverted index) trong bộ nhớ cho tiêu đề + nội dung bài viết.
+// Mỗi từ được lưu ở dạng bỏ dấu ("viet") và, nếu có dấu, thêm dạng giữ dấu ("việt"):
+// từ khóa gõ không dấu khớp mọi biến thể, từ khóa có dấu chỉ khớp đúng chữ đó.
+public class PostSearchIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    // Một lần xuất hiện trong tiêu đề có trọng số bằng 3 lần trong nội dung
+    private static final int TITLE_WEIGHT = 3;
+    // Khớp theo tiền tố ("lap" -> "lập trình") được tính nửa điểm so với khớp nguyên từ
+    private static final double PREFIX_FACTOR = 0.5;
+    private static final double TF_SATURATION = 1.2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, Map<Integer, Posting>> terms = new TreeMap<>();
+    private Map<Integer, Document> documents = new HashMap<>();
+    // Các Builder đang dựng: thay đổi áp dụng trong lúc dựng được ghi lại để publish áp dụng lại
+    private final List<Builder> activeBuilders = new ArrayList<>();
+
+    // ========== CẬP NHẬT CHỈ MỤC ==========
+
+    public void rebuild(Iterable<Post> posts) {
+        try (Builder builder = newBuilder()) {
+            for (Post post : posts) {
+                builder.add(post);
+            }
+            builder.publish();
+        }
+    }
+
+    // Dựng chỉ mục mới ở bên ngoài khóa rồi thay thế một lần, tìm kiếm và add/update/remove không bị chặn
+    // trong lúc dựng. Dùng trong try-with-resources: Builder không publish thì close để thôi ghi nhận thay đổi
+    public Builder newBuilder() {
+        Builder builder = new Builder();
+        lock.writeLock().lock();
+        try {
+            activeBuilders.add(builder);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return builder;
+    }
+
+    public void add(Post post) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(post.getId());
+            addInternal(post.getId(), post.getTitle(), post.getContent(), post.getCreatedAt());
+            recordChange(post.getId(), new Change(post.getTitle(), post.getContent(), post.getCreatedAt()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(Post post) {
+        lock.writeLock().lock();
+        try {
+            Document old = documents.get(post.getId());
+            LocalDateTime createdAt = post.getCreatedAt() != null || old == null ? post.getCreatedAt() : old.createdAt;
+            removeInternal(post.getId());
+            addInternal(post.getId(), post.getTitle(), post.getContent(), createdAt);
+            recordChange(post.getId(), new Change(post.getTitle(), post.getContent(), createdAt));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int postId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(postId);
+            recordChange(postId, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addInternal(int postId, String title, String content, LocalDateTime createdAt) {
+        index(terms, documents, postId, title, content, createdAt);
+    }
+
+    // Gọi khi đang giữ write lock; change = null nghĩa là bài viết đã bị xóa
+    private void recordChange(int postId, Change change) {
+        for (Builder builder : activeBuilders) {
+            builder.changes.put(postId, change);
+        }
+    }
+
+    private static void index(NavigableMap<String, Map<Integer, Posting>> terms, Map<Integer, Document> documents,
+                              int postId, String title, String content, LocalDateTime createdAt) {
+        try {
+            index(terms, documents, postId, title, new StringReader(content == null ? "" : content), createdAt);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void index(NavigableMap<String, Map<Integer, Posting>> terms, Map<Integer, Document> documents,
+                              int postId, String title, Reader content, LocalDateTime createdAt) throws IOException {
+        Map<String, Posting> postings = new HashMap<>();
+        tokenize(title, term -> postings.computeIfAbsent(term, k -> new Posting()).titleTf++);
+        tokenize(content, term -> postings.computeIfAbsent(term, k -> new Posting()).contentTf++);
+        for (Map.Entry<String, Posting> e : postings.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(postId, e.getValue());
+        }
+        documents.put(postId, new Document(createdAt, postings.keySet().toArray(new String[0])));
+    }
+
+    private void removeInternal(int postId) {
+        remove(terms, documents, postId);
+    }
+
+    private static void remove(NavigableMap<String, Map<Integer, Posting>> terms, Map<Integer, Document> documents,
+                               int postId) {
+        Document doc = documents.remove(postId);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms) {
+            Map<Integer, Posting> postings = terms.get(term);
+            if (postings != null) {
+                postings.remove(postId);
+                if (postings.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    // ========== TÌM KIẾM ==========
+
+    // Trả về id bài viết chứa TẤT CẢ các từ khóa, sắp theo độ liên quan giảm dần
+    public List<Integer> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(queryTerms(query)));
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            int totalDocs = documents.size();
+            Map<Integer, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Integer, Double> termScores = scoreTerm(queryTerm, totalDocs);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Integer, Double> e : scores.entrySet()) {
+                        e.setValue(e.getValue() + termScores.get(e.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            final Map<Integer, Double> finalScores = scores;
+            List<Integer> ketQua = new ArrayList<>(finalScores.keySet());
+            Comparator<Integer> byScore = Comparator.comparingDouble(finalScores::get);
+            Comparator<Integer> byDate = Comparator.comparing(
+                    id -> documents.get(id).createdAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+            ketQua.sort(byScore.thenComparing(byDate).thenComparing(Comparator.naturalOrder()).reversed());
+            return ketQua.size() > limit ? new ArrayList<>(ketQua.subList(0, limit)) : ketQua;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Điểm của một từ khóa cho từng bài viết: idf * tf bão hòa (kiểu BM25 đơn giản)
+    private Map<Integer, Double> scoreTerm(String queryTerm, int totalDocs) {
+        Map<Integer, Double> ketQua = new HashMap<>();
+        for (Map.Entry<String, Map<Integer, Posting>> e : terms.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+            double factor = e.getKey().equals(queryTerm) ? 1.0 : PREFIX_FACTOR;
+            Map<Integer, Posting> postings = e.getValue();
+            double idf = Math.log(1 + (totalDocs - postings.size() + 0.5) / (postings.size() + 0.5));
+            for (Map.Entry<Integer, Posting> p : postings.entrySet()) {
+                double tf = p.getValue().titleTf * TITLE_WEIGHT + p.getValue().contentTf;
+                double score = factor * idf * tf / (tf + TF_SATURATION);
+                ketQua.merge(p.getKey(), score, Math::max);
+            }
+        }
+        return ketQua;
+    }
+
+    // ========== TÁCH TỪ ==========
+
+    // Từ khóa tìm kiếm: có dấu thì giữ dấu, không dấu thì trùng với dạng bỏ dấu đã lưu
+    static List<String> queryTerms(String query) {
+        List<String> ketQua = new ArrayList<>();
+        if (query != null) {
+            try {
+                forEachWord(new StringReader(query), ketQua::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ketQua;
+    }
+
+    static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        try {
+            tokenize(new StringReader(text), sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Phát ra dạng bỏ dấu của mỗi từ, kèm dạng giữ dấu nếu khác
+    static void tokenize(Reader text, Consumer<String> sink) throws IOException {
+        forEachWord(text, word -> {
+            String folded = fold(word);
+            sink.accept(folded);
+            if (!folded.equals(word)) {
+                sink.accept(word);
+            }
+        });
+    }
+
+    // Đọc dần từ Reader, chỉ giữ trong bộ nhớ từ đang xét (đọc được nội dung rất dài)
+    private static void forEachWord(Reader reader, Consumer<String> sink) throws IOException {
+        char[] buffer = new char[4096];
+        StringBuilder word = new StringBuilder();
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            for (int i = 0; i < n; i++) {
+                char c = buffer[i];
+                if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK) {
+                    word.append(c);
+                } else if (word.length() > 0) {
+                    sink.accept(normalizeWord(word));
+                    word.setLength(0);
+                }
+            }
+        }
+        if (word.length() > 0) {
+            sink.accept(normalizeWord(word));
+        }
+    }
+
+    private static String normalizeWord(CharSequence word) {
+        return Normalizer.normalize(word, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    static String fold(String word) {
+        String decomposed = Normalizer.normalize(word.replace('đ', 'd'), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    public final class Builder implements AutoCloseable {
+        private final NavigableMap<String, Map<Integer, Posting>> newTerms = new TreeMap<>();
+        private final Map<Integer, Document> newDocuments = new HashMap<>();
+        // Thay đổi trên chỉ mục đang dùng kể từ newBuilder (bản mới nhất của mỗi id), được bảo vệ bởi write lock
+        private final Map<Integer, Change> changes = new HashMap<>();
+
+        private Builder() {}
+
+        public void add(Post post) {
+            index(newTerms, newDocuments, post.getId(), post.getTitle(), post.getContent(), post.getCreatedAt());
+        }
+
+        public void add(Post postWithoutContent, Reader content) throws IOException {
+            index(newTerms, newDocuments, postWithoutContent.getId(), postWithoutContent.getTitle(),
+                    content == null ? new StringReader("") : content, postWithoutContent.getCreatedAt());
+        }
+
+        // Áp dụng lại các thay đổi xảy ra trong lúc dựng (dòng đọc từ CSDL có thể cũ hơn) rồi thay chỉ mục
+        public void publish() {
+            lock.writeLock().lock();
+            try {
+                if (!activeBuilders.remove(this)) {
+                    throw new IllegalStateException("Builder đã publish hoặc đã đóng");
+                }
+                for (Map.Entry<Integer, Change> e : changes.entrySet()) {
+                    remove(newTerms, newDocuments, e.getKey());
+                    Change change = e.getValue();
+                    if (change != null) {
+                        index(newTerms, newDocuments, e.getKey(), change.title, change.content, change.createdAt);
+                    }
+                }
+                terms = newTerms;
+                documents = newDocuments;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Bỏ Builder chưa publish (ví dụ lỗi khi đọc CSDL); gọi sau publish thì không làm gì
+        @Override
+        public void close() {
+            lock.writeLock().lock();
+            try {
+                activeBuilders.remove(this);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class Change {
+        private final String title;
+        private final String content;
+        private final LocalDateTime createdAt;
+
+        Change(String title, String content, LocalDateTime createdAt) {
+            this.title = title;
+            this.content = content;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Posting {
+        private int titleTf;
+        private int contentTf;
+    }
+
+    private static final class Document {
+        private final LocalDateTime createdAt;
+        private final String[] terms;
+
+        Document(LocalDateTime createdAt, String[] terms) {
+            this.createdAt = createdAt;
+            this.terms = terms;
+        }
+    }
+}
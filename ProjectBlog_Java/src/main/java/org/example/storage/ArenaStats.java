@@ -0,0 +1,50 @@
+package org.example.storage;
+
+// Ảnh chụp số liệu của ContentArena
+public final class ArenaStats {
+    private final int chunks;
+    private final long reservedBytes;
+    private final long usedBytes;
+    private final long liveBytes;
+    private final int liveEntries;
+    private final long compactions;
+    private final long movedBytes;
+
+    public ArenaStats(int chunks, long reservedBytes, long usedBytes, long liveBytes, int liveEntries,
+                      long compactions, long movedBytes) {
+        this.chunks = chunks;
+        this.reservedBytes = reservedBytes;
+        this.usedBytes = usedBytes;
+        this.liveBytes = liveBytes;
+        this.liveEntries = liveEntries;
+        this.compactions = compactions;
+        this.movedBytes = movedBytes;
+    }
+
+    public int getChunks() { return chunks; }
+    // Tổng dung lượng các vùng nhớ đã cấp phát ngoài heap
+    public long getReservedBytes() { return reservedBytes; }
+    // Phần đã ghi (gồm cả nội dung đã bị xóa/thay nhưng chưa dồn)
+    public long getUsedBytes() { return usedBytes; }
+    public long getLiveBytes() { return liveBytes; }
+    public int getLiveEntries() { return liveEntries; }
+    public long getCompactions() { return compactions; }
+    public long getMovedBytes() { return movedBytes; }
+
+    public double getFragmentation() {
+        return usedBytes == 0 ? 0.0 : 1.0 - (double) liveBytes / usedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ArenaStats{" +
+                "chunks=" + chunks +
+                ", reserved=" + reservedBytes / 1024 + " KB" +
+                ", used=" + usedBytes / 1024 + " KB" +
+                ", live=" + liveBytes / 1024 + " KB / " + liveEntries + " bài" +
+                ", fragmentation=" + String.format("%.2f", getFragmentation()) +
+                ", compactions=" + compactions +
+                ", moved=" + movedBytes / 1024 + " KB" +
+                '}';
+    }
+}
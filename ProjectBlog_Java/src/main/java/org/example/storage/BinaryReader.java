@@ -0,0 +1,162 @@
+package org.example.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+// Đọc dữ liệu do BinaryWriter ghi, nạp dần từ channel vào ByteBuffer đệm
+// và tính CRC32C của các byte đã đọc để đối chiếu với checksum cuối file.
+// Không có channel thì đọc thẳng từ một ByteBuffer có sẵn (bản ghi WAL).
+final class BinaryReader {
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    // Vị trí trong buffer mà các byte trước đó đã được cộng vào CRC
+    private int crcMark;
+    // Tổng số byte đã nạp vào bộ đệm từ đầu nguồn dữ liệu
+    private long loaded;
+
+    BinaryReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    BinaryReader(ByteBuffer source) {
+        this.channel = null;
+        this.buffer = source;
+        this.crcMark = source.position();
+        this.loaded = source.limit();
+    }
+
+    // Số byte đã đọc tính từ đầu nguồn dữ liệu
+    long position() {
+        return loaded - buffer.remaining();
+    }
+
+    boolean hasRemaining() throws IOException {
+        if (buffer.hasRemaining() || channel == null) {
+            return buffer.hasRemaining();
+        }
+        try {
+            ensure(1);
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    int readByte() throws IOException {
+        ensure(1);
+        return buffer.get() & 0xFF;
+    }
+
+    int readInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    long readLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint không hợp lệ");
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varlong không hợp lệ");
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        length--;
+        ensure(length);
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    byte[] readBytes(int length) throws IOException {
+        ensure(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    LocalDateTime readTimestamp() throws IOException {
+        long encoded = readVarLong();
+        if (encoded == 0) {
+            return null;
+        }
+        encoded--;
+        long millis = (encoded >>> 1) ^ -(encoded & 1);
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    // Đọc 4 byte checksum cuối file và so với CRC32C của mọi byte đã đọc trước đó
+    void verifyChecksum() throws IOException {
+        crc.update(buffer.array(), crcMark, buffer.position() - crcMark);
+        crcMark = buffer.position();
+        int expected = readInt();
+        if (expected != (int) crc.getValue()) {
+            throw new IOException("Snapshot bị hỏng: sai checksum");
+        }
+    }
+
+    // Bảo đảm trong bộ đệm có sẵn ít nhất n byte chưa đọc; nới bộ đệm nếu cần (chuỗi rất dài)
+    private void ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+        if (channel == null) {
+            throw new EOFException("Dữ liệu bị cắt cụt");
+        }
+        crc.update(buffer.array(), crcMark, buffer.position() - crcMark);
+        if (n > buffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, buffer.capacity() * 2));
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+        crcMark = 0;
+        try {
+            while (buffer.position() < n) {
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new EOFException("Dữ liệu bị cắt cụt");
+                }
+                loaded += read;
+            }
+        } finally {
+            buffer.flip();
+        }
+    }
+}
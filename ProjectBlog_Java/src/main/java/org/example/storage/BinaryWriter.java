@@ -0,0 +1,161 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+// Ghi dữ liệu nhị phân qua một ByteBuffer đệm xuống channel, đồng thời tính CRC32C
+// của mọi byte đã ghi (checksum được ghi cuối file bằng finish()).
+// Không có channel thì chỉ ghi vào bộ nhớ (bộ đệm tự nới), dùng để mã hóa bản ghi WAL.
+final class BinaryWriter {
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private long written;
+
+    BinaryWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    BinaryWriter(int initialCapacity) {
+        this(null, initialCapacity);
+    }
+
+    void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    // Số nguyên không âm, 7 bit mỗi byte: id nhỏ chỉ tốn 1-3 byte
+    void writeVarInt(int value) throws IOException {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // Độ dài (số byte UTF-8) + 1, rồi tới các byte; 0 nghĩa là null
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    // Mili giây từ epoch (UTC) mã hóa zigzag + 1; 0 nghĩa là null
+    void writeTimestamp(LocalDateTime value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        long millis = value.toInstant(ZoneOffset.UTC).toEpochMilli();
+        writeVarLong(((millis << 1) ^ (millis >> 63)) + 1);
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        if (channel == null) {
+            ensure(length);
+            buffer.put(bytes, offset, length);
+            return;
+        }
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    // Số byte đã ghi (kể cả phần còn trong bộ đệm)
+    long position() {
+        return written + buffer.position();
+    }
+
+    // Dùng khi ghi vào bộ nhớ: các byte đã ghi nằm ở array()[0, size())
+    int size() {
+        return buffer.position();
+    }
+
+    byte[] array() {
+        return buffer.array();
+    }
+
+    void reset() {
+        buffer.clear();
+        written = 0;
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.array(), 0, buffer.limit());
+        written += buffer.limit();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Checksum ghi bởi finish() chỉ tính các byte ghi sau lời gọi này
+    void restartChecksum() throws IOException {
+        flush();
+        crc.reset();
+    }
+
+    // Ghi nốt bộ đệm rồi ghi CRC32C của toàn bộ nội dung (4 byte, không tính vào checksum)
+    void finish() throws IOException {
+        flush();
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        written += buffer.limit();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        if (channel != null) {
+            flush();
+            return;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+}
@@ -0,0 +1,216 @@
+package org.example.storage;
+
+import org.example.model.Post;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Nội dung bài viết (UTF-8) nằm ngoài heap, trong các vùng direct ByteBuffer cấp theo khối (chunk).
+// Post chỉ giữ Handle, getContent giải mã mỗi lần đọc nên GC không phải duyệt/chép các chuỗi lớn.
+//   - Ghi: nối tiếp vào chunk đang ghi; nội dung lớn hơn nửa chunk có chunk riêng
+//   - Xóa/thay: chỉ trừ số byte còn sống của chunk; chunk hết dữ liệu sống thì bỏ,
+//     chunk còn dưới 1/4 dữ liệu sống thì dồn phần còn lại sang chunk đang ghi (compaction);
+//     cả arena có hơn nửa là rác thì dồn chunk thưa nhất
+// Chunk bị bỏ không được dùng lại mà để GC thu hồi: Handle cũ (bản được checkpoint giữ lại,
+// Post người gọi còn giữ) vẫn đọc được nội dung cũ, không có chuyện đọc vùng nhớ đã cấp cho bài khác.
+// Dung lượng tối đa theo -XX:MaxDirectMemorySize (mặc định bằng -Xmx).
+public final class ContentArena {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int COMPACT_DIVISOR = 4;
+
+    private final int chunkSize;
+    // Các trường dưới đây được bảo vệ bởi khóa của arena
+    private final List<Chunk> chunks = new ArrayList<>();
+    private Chunk current;
+    private long usedBytes;
+    private long liveBytes;
+    private int liveEntries;
+    private long compactions;
+    private long movedBytes;
+
+    public ContentArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ContentArena(int chunkSize) {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("Kích thước chunk quá nhỏ: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    // Chép nội dung của post vào arena, post chỉ còn giữ handle. Post đã giữ handle còn sống của arena này
+    // thì dùng lại handle đó. Trả về null nếu nội dung null
+    public Handle store(Post post) {
+        Supplier<String> source = post.getContentSource();
+        byte[] bytes;
+        if (source instanceof Handle handle) {
+            synchronized (this) {
+                if (handle.arena == this && !handle.freed) {
+                    return handle;
+                }
+            }
+            bytes = handle.bytes();
+        } else if (source instanceof MappedContent mapped) {
+            // Nội dung từ snapshot ánh xạ: chép nguyên byte, không giải mã
+            bytes = mapped.bytes();
+        } else {
+            String content = post.getContent();
+            if (content == null) {
+                return null;
+            }
+            bytes = content.getBytes(StandardCharsets.UTF_8);
+        }
+        Handle handle = new Handle(this, bytes.length);
+        synchronized (this) {
+            Chunk chunk = chunkFor(bytes.length);
+            chunk.buffer.put(chunk.used, bytes);
+            place(handle, chunk);
+            liveBytes += bytes.length;
+            liveEntries++;
+        }
+        post.setContentSource(handle, true);
+        return handle;
+    }
+
+    // Đánh dấu nội dung không còn dùng (bài bị xóa hoặc được thay bằng bản khác); gọi lại nhiều lần không sao
+    public synchronized void free(Handle handle) {
+        if (handle == null || handle.arena != this || handle.freed) {
+            return;
+        }
+        handle.freed = true;
+        Chunk chunk = handle.location.chunk;
+        chunk.live -= handle.length;
+        liveBytes -= handle.length;
+        liveEntries--;
+        if (chunk != current) {
+            if (chunk.live == 0) {
+                drop(chunk);
+            } else if (chunk.live * COMPACT_DIVISOR < chunk.used) {
+                evacuate(chunk);
+            }
+        }
+        if (liveBytes * 2 < usedBytes) {
+            Chunk sparsest = null;
+            for (Chunk candidate : chunks) {
+                if (candidate != current && (sparsest == null
+                        || candidate.live * sparsest.used < sparsest.live * candidate.used)) {
+                    sparsest = candidate;
+                }
+            }
+            if (sparsest != null) {
+                evacuate(sparsest);
+            }
+        }
+    }
+
+    // Bỏ toàn bộ nội dung (loadFromFile nạp lại từ đầu); handle cũ vẫn đọc được
+    public synchronized void clear() {
+        chunks.clear();
+        current = null;
+        usedBytes = 0;
+        liveBytes = 0;
+        liveEntries = 0;
+    }
+
+    public synchronized ArenaStats getStats() {
+        long reserved = 0;
+        for (Chunk chunk : chunks) {
+            reserved += chunk.buffer.capacity();
+        }
+        return new ArenaStats(chunks.size(), reserved, usedBytes, liveBytes, liveEntries, compactions, movedBytes);
+    }
+
+    // Chunk còn đủ chỗ cho length byte (gọi trong khóa)
+    private Chunk chunkFor(int length) {
+        if (length > chunkSize / 2) {
+            Chunk own = new Chunk(length);
+            chunks.add(own);
+            return own;
+        }
+        if (current == null || current.buffer.capacity() - current.used < length) {
+            current = new Chunk(chunkSize);
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    // Ghi nhận handle vừa được chép vào cuối chunk (gọi trong khóa)
+    private void place(Handle handle, Chunk chunk) {
+        handle.location = new Location(chunk, chunk.used);
+        chunk.used += handle.length;
+        chunk.live += handle.length;
+        usedBytes += handle.length;
+        chunk.handles.add(handle);
+    }
+
+    // Dồn các nội dung còn sống của chunk sang chunk đang ghi rồi bỏ chunk (gọi trong khóa).
+    // Luồng đang đọc theo vị trí cũ vẫn đọc đúng vì chunk cũ không bị ghi đè
+    private void evacuate(Chunk chunk) {
+        drop(chunk);
+        for (Handle handle : chunk.handles) {
+            if (handle.freed) {
+                continue;
+            }
+            Location from = handle.location;
+            Chunk target = chunkFor(handle.length);
+            target.buffer.put(target.used, from.chunk.buffer, from.offset, handle.length);
+            place(handle, target);
+            movedBytes += handle.length;
+        }
+        compactions++;
+    }
+
+    private void drop(Chunk chunk) {
+        chunks.remove(chunk);
+        usedBytes -= chunk.used;
+    }
+
+    // Tham chiếu tới nội dung một bài viết trong arena
+    public static final class Handle implements Supplier<String> {
+        private final ContentArena arena;
+        private final int length;
+        // Đổi khi compaction chuyển nội dung sang chunk khác
+        private volatile Location location;
+        private boolean freed;
+
+        private Handle(ContentArena arena, int length) {
+            this.arena = arena;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        // Các byte UTF-8; đọc tuyệt đối nên nhiều luồng đọc cùng lúc được
+        public byte[] bytes() {
+            Location at = location;
+            byte[] bytes = new byte[length];
+            at.chunk.buffer.get(at.offset, bytes);
+            return bytes;
+        }
+
+        @Override
+        public String get() {
+            return new String(bytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private record Location(Chunk chunk, int offset) {
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+        private int used;
+        private long live;
+        private final List<Handle> handles = new ArrayList<>();
+
+        Chunk(int capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+    }
+}
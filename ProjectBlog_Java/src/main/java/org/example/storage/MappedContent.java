@@ -0,0 +1,70 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Nội dung một bài viết chưa giải mã: vị trí, độ dài và checksum trong file snapshot đã ánh xạ,
+// hoặc bản sao các byte đó trên heap (detach, khi file snapshot sắp bị thay).
+// Post.getContent() mới kiểm tra checksum và giải mã UTF-8
+final class MappedContent implements Supplier<String> {
+    private final MappedFile file;
+    private final long offset;
+    private final byte[] copy;
+    private final int length;
+    private final int checksum;
+
+    MappedContent(MappedFile file, long offset, int length, int checksum) {
+        this.file = file;
+        this.offset = offset;
+        this.copy = null;
+        this.length = length;
+        this.checksum = checksum;
+    }
+
+    private MappedContent(byte[] copy, int checksum) {
+        this.file = null;
+        this.offset = 0;
+        this.copy = copy;
+        this.length = copy.length;
+        this.checksum = checksum;
+    }
+
+    // Các byte UTF-8 gốc, chưa kiểm tra checksum (ghi snapshot mới thì chép nguyên cùng checksum cũ,
+    // nội dung hỏng vẫn bị phát hiện khi đọc chứ không làm hỏng checkpoint)
+    byte[] rawBytes() {
+        if (copy != null) {
+            return copy;
+        }
+        byte[] bytes = new byte[length];
+        file.read(offset, bytes, 0, length);
+        return bytes;
+    }
+
+    // Các byte UTF-8 đã kiểm tra checksum
+    byte[] bytes() {
+        byte[] bytes = rawBytes();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        if ((int) crc.getValue() != checksum) {
+            throw new UncheckedIOException(new IOException("Snapshot bị hỏng: sai checksum nội dung bài viết"));
+        }
+        return bytes;
+    }
+
+    // Bản không còn tham chiếu tới file ánh xạ, dùng lại rawBytes vừa đọc
+    MappedContent detach(byte[] rawBytes) {
+        return copy != null ? this : new MappedContent(rawBytes, checksum);
+    }
+
+    int checksum() {
+        return checksum;
+    }
+
+    @Override
+    public String get() {
+        return new String(bytes(), StandardCharsets.UTF_8);
+    }
+}
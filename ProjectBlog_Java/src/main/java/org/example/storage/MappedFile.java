@@ -0,0 +1,39 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Một file snapshot được ánh xạ vào bộ nhớ (chỉ đọc). MappedByteBuffer tối đa 2 GB
+// nên file lớn được ánh xạ thành nhiều cửa sổ 1 GB; vùng đọc có thể nằm vắt qua hai cửa sổ.
+// Ánh xạ vẫn dùng được sau khi đóng channel và chỉ được bỏ khi GC thu hồi MappedByteBuffer.
+// Trên Linux/macOS file vẫn đổi tên đè được khi đang ánh xạ; trên Windows thì không, nên
+// SnapshotCodec.write tách các bài viết khỏi file cũ (MappedContent.detach) trước khi thay file.
+final class MappedFile {
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_SIZE = 1L << WINDOW_BITS;
+
+    private final MappedByteBuffer[] windows;
+
+    MappedFile(FileChannel channel, long size) throws IOException {
+        int count = (int) ((size + WINDOW_SIZE - 1) >>> WINDOW_BITS);
+        windows = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << WINDOW_BITS;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        }
+    }
+
+    // Đọc tuyệt đối (không đổi position của buffer) nên nhiều luồng đọc cùng lúc được
+    void read(long offset, byte[] target, int targetOffset, int length) {
+        while (length > 0) {
+            MappedByteBuffer window = windows[(int) (offset >>> WINDOW_BITS)];
+            int index = (int) (offset & (WINDOW_SIZE - 1));
+            int n = Math.min(length, window.limit() - index);
+            window.get(index, target, targetOffset, n);
+            offset += n;
+            targetOffset += n;
+            length -= n;
+        }
+    }
+}
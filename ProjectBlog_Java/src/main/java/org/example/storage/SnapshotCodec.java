@@ -0,0 +1,389 @@
+package org.example.storage;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Định dạng snapshot nhị phân của BlogManager (thay cho ObjectOutputStream).
+//
+// Phiên bản 3: nội dung bài viết tách khỏi metadata để có thể ánh xạ file vào bộ nhớ
+// (FileChannel.map) và chỉ giải mã khi Post.getContent() được gọi; metadata chia thành các đoạn
+// (mỗi đoạn tối đa SEGMENT_RECORDS bản ghi cùng loại) giải mã độc lập nên đọc song song được:
+//
+//   "BLOG" | version (1 byte)
+//   nội dung: UTF-8 của từng bài viết nối liền nhau
+//   các đoạn: bản ghi liên tiếp + CRC32C của đoạn (4 byte)
+//     user    : id, username, passwordHash, displayName, createdAt
+//     post    : id, title, authorId, createdAt, updatedAt,
+//               độ dài nội dung + 1 (0 = null), vị trí nội dung trong file, CRC32C của nội dung
+//     comment : id, postId, authorName, content, createdAt
+//   danh mục: số đoạn, mỗi đoạn: loại (1 byte), vị trí, độ dài, số bản ghi; CRC32C của danh mục
+//   vị trí bắt đầu danh mục (8 byte)
+//
+// id là varint, chuỗi là độ dài + UTF-8, thời gian là mili giây từ epoch (UTC).
+// Không phụ thuộc cấu trúc class Java nên đổi model không làm hỏng file cũ.
+public final class SnapshotCodec {
+    static final byte[] MAGIC = {'B', 'L', 'O', 'G'};
+    static final int VERSION = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TRAILER_SIZE = 8;
+    static final int SEGMENT_RECORDS = 16 * 1024;
+    private static final int USERS = 1;
+    private static final int POSTS = 2;
+    private static final int COMMENTS = 3;
+    private static final int REPLACE_ATTEMPTS = 5;
+
+    private SnapshotCodec() {}
+
+    // Ghi ra file tạm cùng thư mục, fsync, rồi đổi tên đè lên file đích:
+    // nếu bị ngắt giữa chừng thì file cũ vẫn nguyên vẹn. Trả về kích thước file (byte).
+    public static long write(Path file, Collection<User> users, Collection<Post> posts,
+                             Collection<Comment> comments) throws IOException {
+        Path temp = tempFileFor(file);
+        List<Post> postList = posts instanceof List<Post> list ? list : new ArrayList<>(posts);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BinaryWriter out = new BinaryWriter(channel, BUFFER_SIZE);
+            for (byte b : MAGIC) {
+                out.writeByte(b);
+            }
+            out.writeByte(VERSION);
+
+            // Bước 1: nội dung các bài viết, ghi nhớ vị trí / độ dài / checksum của từng bài
+            long[] offsets = new long[postList.size()];
+            int[] lengths = new int[postList.size()];
+            int[] checksums = new int[postList.size()];
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < postList.size(); i++) {
+                Post post = postList.get(i);
+                byte[] bytes;
+                Supplier<String> source = post.getContentSource();
+                if (source instanceof MappedContent mapped) {
+                    // Chưa ai đọc nội dung: chép nguyên byte và checksum từ snapshot cũ, không giải mã.
+                    // Bài viết chuyển sang giữ bản sao trên heap để không còn gì trỏ vào file sắp bị thay
+                    bytes = mapped.rawBytes();
+                    checksums[i] = mapped.checksum();
+                    post.replaceContentSource(mapped, mapped.detach(bytes));
+                } else {
+                    if (source instanceof ContentArena.Handle handle) {
+                        // Nội dung ngoài heap đã là UTF-8
+                        bytes = handle.bytes();
+                    } else {
+                        String content = post.getContent();
+                        if (content == null) {
+                            lengths[i] = -1;
+                            continue;
+                        }
+                        bytes = content.getBytes(StandardCharsets.UTF_8);
+                    }
+                    crc.reset();
+                    crc.update(bytes);
+                    checksums[i] = (int) crc.getValue();
+                }
+                offsets[i] = out.position();
+                lengths[i] = bytes.length;
+                out.writeBytes(bytes, 0, bytes.length);
+            }
+
+            // Bước 2: metadata chia đoạn, mỗi đoạn có checksum riêng
+            List<long[]> directory = new ArrayList<>();
+            writeSegments(out, USERS, users, (o, user, i) -> writeUser(o, user), directory);
+            writeSegments(out, POSTS, postList, (o, post, i) -> {
+                o.writeVarInt(post.getId());
+                o.writeString(post.getTitle());
+                o.writeVarInt(post.getAuthorId());
+                o.writeTimestamp(post.getCreatedAt());
+                o.writeTimestamp(post.getUpdatedAt());
+                o.writeVarInt(lengths[i] + 1);
+                if (lengths[i] >= 0) {
+                    o.writeVarLong(offsets[i]);
+                    o.writeInt(checksums[i]);
+                }
+            }, directory);
+            writeSegments(out, COMMENTS, comments, (o, comment, i) -> writeComment(o, comment), directory);
+
+            // Bước 3: danh mục các đoạn, vị trí danh mục ở cuối file
+            long directoryOffset = out.position();
+            out.restartChecksum();
+            out.writeVarInt(directory.size());
+            for (long[] segment : directory) {
+                out.writeByte((int) segment[0]);
+                out.writeVarLong(segment[1]);
+                out.writeVarInt((int) segment[2]);
+                out.writeVarInt((int) segment[3]);
+            }
+            out.finish();
+            out.writeLong(directoryOffset);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        replace(temp, file);
+        return Files.size(file);
+    }
+
+    // Windows không cho đổi tên đè lên file còn vùng ánh xạ, mà Java chỉ bỏ ánh xạ khi MappedByteBuffer
+    // được GC thu hồi. write đã tách mọi bài viết khỏi snapshot cũ nên chỉ cần chờ GC rồi thử lại;
+    // trên Linux/macOS đổi tên thành công ngay lần đầu
+    private static void replace(Path temp, Path file) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return;
+            } catch (FileSystemException e) {
+                if (attempt == REPLACE_ATTEMPTS) {
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+                System.gc();
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    Files.deleteIfExists(temp);
+                    throw new InterruptedIOException("Bị ngắt khi thay file snapshot");
+                }
+            }
+        }
+    }
+
+    // Giải mã song song trên một pool tạm có số luồng bằng số nhân CPU
+    public static SnapshotData read(Path file) throws IOException {
+        try (ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())) {
+            return read(file, pool);
+        }
+    }
+
+    // Chỉ đọc metadata (nội dung bài viết được ánh xạ và giải mã khi cần);
+    // mỗi đoạn metadata được giải mã trên một tác vụ riêng của pool
+    public static SnapshotData read(Path file, ExecutorService pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int version = readHeader(channel, file);
+            if (version != VERSION) {
+                throw new IOException("Phiên bản snapshot không được hỗ trợ: " + version);
+            }
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, size - TRAILER_SIZE);
+            long metadataOffset = trailer.flip().getLong();
+            if (metadataOffset < MAGIC.length + 1 || metadataOffset > size - TRAILER_SIZE) {
+                throw new IOException("Snapshot bị hỏng: sai vị trí metadata");
+            }
+
+            // Bước 1: danh mục các đoạn
+            ByteBuffer directoryBytes = ByteBuffer.allocate((int) (size - TRAILER_SIZE - metadataOffset));
+            readFully(channel, directoryBytes, metadataOffset);
+            BinaryReader directory = new BinaryReader(directoryBytes.flip());
+            int segmentCount = directory.readVarInt();
+            int[] kinds = new int[segmentCount];
+            long[] offsets = new long[segmentCount];
+            int[] lengths = new int[segmentCount];
+            int[] counts = new int[segmentCount];
+            long contentEnd = metadataOffset;
+            for (int i = 0; i < segmentCount; i++) {
+                kinds[i] = directory.readByte();
+                offsets[i] = directory.readVarLong();
+                lengths[i] = directory.readVarInt();
+                counts[i] = directory.readVarInt();
+                if (offsets[i] < MAGIC.length + 1 || offsets[i] + lengths[i] > metadataOffset) {
+                    throw new IOException("Snapshot bị hỏng: sai vị trí đoạn " + i);
+                }
+                contentEnd = Math.min(contentEnd, offsets[i]);
+            }
+            directory.verifyChecksum();
+            MappedFile mapped = new MappedFile(channel, contentEnd);
+            long mappedSize = contentEnd;
+
+            // Bước 2: giải mã song song từng đoạn (FileChannel đọc theo vị trí nên dùng chung được)
+            List<Future<List<?>>> futures = new ArrayList<>(segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                int kind = kinds[i];
+                long offset = offsets[i];
+                int length = lengths[i];
+                int count = counts[i];
+                futures.add(pool.submit(() -> readSegment(channel, kind, offset, length, count, mapped, mappedSize)));
+            }
+
+            // Bước 3: ghép kết quả theo thứ tự trong file
+            List<User> users = new ArrayList<>();
+            List<Post> posts = new ArrayList<>();
+            List<Comment> comments = new ArrayList<>();
+            for (int i = 0; i < segmentCount; i++) {
+                List<?> records = await(futures.get(i));
+                switch (kinds[i]) {
+                    case USERS -> addAll(users, records);
+                    case POSTS -> addAll(posts, records);
+                    default -> addAll(comments, records);
+                }
+            }
+            return new SnapshotData(users, posts, comments, segmentCount);
+        }
+    }
+
+    private static List<?> readSegment(FileChannel channel, int kind, long offset, int length, int count,
+                                       MappedFile mapped, long mappedSize) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        readFully(channel, bytes, offset);
+        BinaryReader in = new BinaryReader(bytes.flip());
+        List<Object> ketQua = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            switch (kind) {
+                case USERS -> ketQua.add(readUser(in));
+                case POSTS -> ketQua.add(readPost(in, mapped, mappedSize));
+                case COMMENTS -> ketQua.add(readComment(in));
+                default -> throw new IOException("Loại đoạn snapshot không hợp lệ: " + kind);
+            }
+        }
+        in.verifyChecksum();
+        return ketQua;
+    }
+
+    // Kiểm tra magic, trả về số phiên bản
+    private static int readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Không phải file snapshot của blog: " + file);
+            }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                throw new IOException("Không phải file snapshot của blog: " + file);
+            }
+        }
+        return header.get(MAGIC.length) & 0xFF;
+    }
+
+    private interface RecordWriter<T> {
+        void write(BinaryWriter out, T value, int index) throws IOException;
+    }
+
+    // Chia các bản ghi thành đoạn tối đa SEGMENT_RECORDS bản ghi; mỗi đoạn kết thúc bằng CRC32C của nó.
+    // Thêm {loại, vị trí, độ dài, số bản ghi} của từng đoạn vào directory
+    private static <T> void writeSegments(BinaryWriter out, int kind, Collection<T> values, RecordWriter<T> writer,
+                                          List<long[]> directory) throws IOException {
+        Iterator<T> iterator = values.iterator();
+        int index = 0;
+        while (iterator.hasNext()) {
+            long start = out.position();
+            out.restartChecksum();
+            int count = 0;
+            while (count < SEGMENT_RECORDS && iterator.hasNext()) {
+                writer.write(out, iterator.next(), index++);
+                count++;
+            }
+            out.finish();
+            directory.add(new long[]{kind, start, out.position() - start, count});
+        }
+    }
+
+    private static Post readPost(BinaryReader in, MappedFile mapped, long mappedSize) throws IOException {
+        Post post = new Post(in.readVarInt(), in.readString(), null, in.readVarInt(),
+                in.readTimestamp(), in.readTimestamp());
+        int length = in.readVarInt() - 1;
+        if (length >= 0) {
+            long offset = in.readVarLong();
+            int checksum = in.readInt();
+            if (offset < 0 || offset + length > mappedSize) {
+                throw new IOException("Snapshot bị hỏng: sai vị trí nội dung bài viết " + post.getId());
+            }
+            if (length == 0) {
+                post.setContent("");
+            } else {
+                post.setContentSource(new MappedContent(mapped, offset, length, checksum));
+            }
+        }
+        return post;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + target.position()) < 0) {
+                throw new IOException("Snapshot bị cắt cụt");
+            }
+        }
+    }
+
+    private static List<?> await(Future<List<?>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Bị ngắt khi đọc snapshot");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Lỗi khi giải mã snapshot", e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void addAll(List<T> target, List<?> records) {
+        target.addAll((List<T>) records);
+    }
+
+    private static void writeUser(BinaryWriter out, User user) throws IOException {
+        out.writeVarInt(user.getId());
+        out.writeString(user.getUsername());
+        out.writeString(user.getPasswordHash());
+        out.writeString(user.getDisplayName());
+        out.writeTimestamp(user.getCreatedAt());
+    }
+
+    private static User readUser(BinaryReader in) throws IOException {
+        return new User(in.readVarInt(), in.readString(), in.readString(), in.readString(), in.readTimestamp());
+    }
+
+    private static void writeComment(BinaryWriter out, Comment comment) throws IOException {
+        out.writeVarInt(comment.getId());
+        out.writeVarInt(comment.getPostId());
+        out.writeString(comment.getAuthorName());
+        out.writeString(comment.getContent());
+        out.writeTimestamp(comment.getCreatedAt());
+    }
+
+    private static Comment readComment(BinaryReader in) throws IOException {
+        return new Comment(in.readVarInt(), in.readVarInt(), in.readString(), in.readString(), in.readTimestamp());
+    }
+
+    // File do ObjectOutputStream ghi (định dạng cũ) bắt đầu bằng 0xACED
+    public static boolean isLegacyFormat(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0xAC && in.read() == 0xED;
+        }
+    }
+
+    static Path tempFileFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.storage;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.User;
+
+import java.util.List;
+
+// Toàn bộ dữ liệu của một snapshot: danh sách user, bài viết và bình luận theo thứ tự đã lưu
+public final class SnapshotData {
+    private final List<User> users;
+    private final List<Post> posts;
+    private final List<Comment> comments;
+    // Số đoạn metadata đã giải mã (1 với định dạng cũ không chia đoạn)
+    private final int segments;
+
+    public SnapshotData(List<User> users, List<Post> posts, List<Comment> comments) {
+        this(users, posts, comments, 1);
+    }
+
+    public SnapshotData(List<User> users, List<Post> posts, List<Comment> comments, int segments) {
+        this.users = users;
+        this.posts = posts;
+        this.comments = comments;
+        this.segments = segments;
+    }
+
+    public List<User> getUsers() { return users; }
+    public List<Post> getPosts() { return posts; }
+    public List<Comment> getComments() { return comments; }
+    public int getSegments() { return segments; }
+}
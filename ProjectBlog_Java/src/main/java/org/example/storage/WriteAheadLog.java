@@ -0,0 +1,496 @@
+package org.example.storage;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.User;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// Nhật ký ghi trước (WAL) cho BlogManager: mỗi thay đổi được nối vào cuối file
+// <dataFile>.wal.<số thứ tự> dưới dạng một bản ghi nhị phân gọn:
+//
+//   độ dài payload (4 byte) | CRC32C của payload (4 byte) | payload
+//   payload: loại (1 byte) + các trường, mã hóa như SnapshotCodec (varint, chuỗi, thời gian)
+//
+// Ghi đĩa theo kiểu group commit: các luồng chỉ chép bản ghi vào bộ đệm trong bộ nhớ,
+// luồng nền "blog-wal-flusher" gom mọi bản ghi đang chờ, ghi một lần rồi fsync một lần.
+//   fsyncIntervalMillis = 0 : thao tác chờ tới khi bản ghi của nó đã fsync (không mất dữ liệu)
+//   fsyncIntervalMillis > 0 : fsync định kỳ, thao tác không chờ (mất tối đa chừng đó ms khi sập)
+//
+// Khi khởi động: nạp snapshot rồi replay() mọi đoạn WAL theo thứ tự. Các thao tác đều là
+// ghi đè/xóa theo id nên replay lại một bản ghi đã có trong snapshot không làm sai dữ liệu;
+// nhờ vậy snapshot có thể được ghi trong khi các luồng khác vẫn đang ghi WAL.
+public final class WriteAheadLog implements Closeable {
+    static final int ADD_USER = 1;
+    static final int ADD_POST = 2;
+    static final int UPDATE_POST = 3;
+    static final int DELETE_POST = 4;
+    static final int ADD_COMMENT = 5;
+    static final int DELETE_COMMENT = 6;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Nhận các thao tác đọc được từ WAL khi khởi động
+    public interface Handler {
+        void addUser(User user);
+        void addPost(Post post);
+        void updatePost(Post post);
+        void deletePost(int postId);
+        void addComment(Comment comment);
+        void deleteComment(int commentId);
+    }
+
+    private final Path dataFile;
+    private final long fsyncIntervalMillis;
+
+    // lock bảo vệ bộ đệm và các bộ đếm; ioLock giữ suốt lúc ghi file (luồng nền, rotate, close).
+    // Luôn lấy ioLock trước lock.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final Condition hasData = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Condition closing = lock.newCondition();
+
+    private final BinaryWriter payload = new BinaryWriter(256);
+    private final CRC32C crc = new CRC32C();
+    // Bản ghi chờ ghi; luồng nền đổi chỗ với spare để các luồng khác ghi tiếp trong lúc fsync
+    private BinaryWriter pending = new BinaryWriter(BUFFER_SIZE);
+    private BinaryWriter spare = new BinaryWriter(BUFFER_SIZE);
+
+    private FileChannel channel;
+    private long segment;
+    private long segmentSize;
+    // Vị trí logic (tổng số byte đã nối / đã fsync từ lúc mở), dùng để chờ group commit
+    private long appendedLsn;
+    private long durableLsn;
+    private long records;
+    private long syncs;
+    private IOException failure;
+    private boolean closed;
+    private final Thread flusher;
+
+    private WriteAheadLog(Path dataFile, long fsyncIntervalMillis) throws IOException {
+        this.dataFile = dataFile;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        List<Long> existing = listSegments(dataFile);
+        this.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        this.channel = openSegment(segment);
+        this.flusher = Thread.ofPlatform().name("blog-wal-flusher").daemon().start(this::flushLoop);
+    }
+
+    // Mở một đoạn WAL mới (số thứ tự lớn hơn mọi đoạn đang có) để ghi tiếp
+    public static WriteAheadLog open(Path dataFile, long fsyncIntervalMillis) throws IOException {
+        return new WriteAheadLog(dataFile, fsyncIntervalMillis);
+    }
+
+    // ========== GHI BẢN GHI ==========
+    // Các hàm log* trả về vị trí của bản ghi, truyền cho awaitDurable sau khi nhả khóa dữ liệu
+
+    public long logAddUser(User user) {
+        lock.lock();
+        try {
+            payload.reset();
+            payload.writeByte(ADD_USER);
+            payload.writeVarInt(user.getId());
+            payload.writeString(user.getUsername());
+            payload.writeString(user.getPasswordHash());
+            payload.writeString(user.getDisplayName());
+            payload.writeTimestamp(user.getCreatedAt());
+            return appendPayload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long logAddPost(Post post) {
+        return logPost(ADD_POST, post);
+    }
+
+    public long logUpdatePost(Post post) {
+        return logPost(UPDATE_POST, post);
+    }
+
+    public long logDeletePost(int postId) {
+        return logId(DELETE_POST, postId);
+    }
+
+    public long logAddComment(Comment comment) {
+        lock.lock();
+        try {
+            payload.reset();
+            payload.writeByte(ADD_COMMENT);
+            payload.writeVarInt(comment.getId());
+            payload.writeVarInt(comment.getPostId());
+            payload.writeString(comment.getAuthorName());
+            payload.writeString(comment.getContent());
+            payload.writeTimestamp(comment.getCreatedAt());
+            return appendPayload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long logDeleteComment(int commentId) {
+        return logId(DELETE_COMMENT, commentId);
+    }
+
+    private long logPost(int type, Post post) {
+        lock.lock();
+        try {
+            payload.reset();
+            payload.writeByte(type);
+            payload.writeVarInt(post.getId());
+            payload.writeString(post.getTitle());
+            payload.writeString(post.getContent());
+            payload.writeVarInt(post.getAuthorId());
+            payload.writeTimestamp(post.getCreatedAt());
+            payload.writeTimestamp(post.getUpdatedAt());
+            return appendPayload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long logId(int type, int id) {
+        lock.lock();
+        try {
+            payload.reset();
+            payload.writeByte(type);
+            payload.writeVarInt(id);
+            return appendPayload();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gọi khi đang giữ lock: chép payload kèm header vào bộ đệm chờ ghi.
+    // Luồng ghi đĩa đã dừng vì lỗi thì báo lỗi ngay, không gom thêm bản ghi sẽ không bao giờ được ghi
+    private long appendPayload() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("WAL đã đóng");
+        }
+        if (failure != null) {
+            throw new IOException("Không ghi được WAL: " + failure.getMessage(), failure);
+        }
+        int length = payload.size();
+        crc.reset();
+        crc.update(payload.array(), 0, length);
+        pending.writeInt(length);
+        pending.writeInt((int) crc.getValue());
+        pending.writeBytes(payload.array(), 0, length);
+        appendedLsn += HEADER_SIZE + length;
+        records++;
+        hasData.signal();
+        return appendedLsn;
+    }
+
+    // Chế độ đồng bộ: chờ tới khi bản ghi tại vị trí lsn đã nằm trên đĩa
+    public void awaitDurable(long lsn) {
+        if (fsyncIntervalMillis > 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableLsn < lsn && failure == null && !closed) {
+                durable.awaitUninterruptibly();
+            }
+            if (durableLsn < lsn) {
+                throw new UncheckedIOException("Không ghi được WAL",
+                        failure != null ? failure : new IOException("WAL đã đóng"));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== GHI ĐĨA (LUỒNG NỀN) ==========
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                // Chế độ định kỳ: ngủ hết chu kỳ để gom bản ghi; chế độ đồng bộ: ghi ngay khi có bản ghi,
+                // các bản ghi đến trong lúc đang fsync sẽ được gom vào lần ghi sau
+                if (fsyncIntervalMillis > 0 && !closed) {
+                    closing.await(fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                while (pending.size() == 0 && !closed) {
+                    hasData.await();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            ioLock.lock();
+            try {
+                flushPending();
+            } catch (IOException e) {
+                System.err.println("[WAL] Lỗi khi ghi " + segmentFile(dataFile, segment) + ", dừng ghi WAL: "
+                        + e.getMessage());
+                lock.lock();
+                try {
+                    failure = e;
+                    durable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    // Gọi khi đang giữ ioLock: lấy toàn bộ bản ghi đang chờ, ghi một lần và fsync một lần
+    private void flushPending() throws IOException {
+        BinaryWriter batch;
+        long target;
+        lock.lock();
+        try {
+            batch = pending;
+            pending = spare;
+            spare = batch;
+            target = appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+        if (batch.size() > 0) {
+            ByteBuffer bytes = ByteBuffer.wrap(batch.array(), 0, batch.size());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            segmentSize += batch.size();
+            batch.reset();
+        }
+        lock.lock();
+        try {
+            syncs++;
+            durableLsn = target;
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ========== XOAY VÒNG / DỌN DẸP ==========
+
+    // Ghi nốt đoạn hiện tại rồi chuyển sang đoạn mới. Trả về số của đoạn mới:
+    // snapshot chụp sau lời gọi này bao trùm mọi đoạn nhỏ hơn, có thể xóa bằng deleteSegmentsBefore
+    public long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.close();
+            segment++;
+            segmentSize = 0;
+            channel = openSegment(segment);
+            return segment;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    public void deleteSegmentsBefore(long number) throws IOException {
+        deleteSegmentsBefore(dataFile, number);
+    }
+
+    public static void deleteSegmentsBefore(Path dataFile, long number) throws IOException {
+        for (long existing : listSegments(dataFile)) {
+            if (existing < number) {
+                Files.deleteIfExists(segmentFile(dataFile, existing));
+            }
+        }
+    }
+
+    // Đổi tên mọi đoạn WAL thành <tên đoạn><suffix> (listSegments không còn thấy chúng) để giữ lại
+    // các đoạn chưa phát lại được thay vì xóa
+    public static void moveSegmentsAside(Path dataFile, String suffix) throws IOException {
+        for (long existing : listSegments(dataFile)) {
+            Path file = segmentFile(dataFile, existing);
+            Files.move(file, file.resolveSibling(file.getFileName() + suffix));
+        }
+    }
+
+    // Số byte của đoạn đang ghi, để quyết định khi nào cần gộp vào snapshot
+    public long getSegmentSize() {
+        ioLock.lock();
+        try {
+            return segmentSize;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    public long getRecordCount() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncCount() {
+        lock.lock();
+        try {
+            return syncs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ghi nốt các bản ghi đang chờ rồi đóng file
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            hasData.signalAll();
+            closing.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    // ========== KHÔI PHỤC ==========
+
+    // Đọc lần lượt mọi đoạn WAL và áp dụng từng bản ghi. Bản ghi cuối bị ghi dở (sập giữa chừng)
+    // được cắt bỏ khỏi đoạn cuối; bản ghi hỏng nằm giữa thì dừng và báo lỗi. Trả về số bản ghi đã áp dụng.
+    public static int replay(Path dataFile, Handler handler) throws IOException {
+        List<Long> segments = listSegments(dataFile);
+        int applied = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path file = segmentFile(dataFile, segments.get(i));
+            boolean last = i == segments.size() - 1;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                BinaryReader in = new BinaryReader(channel, BUFFER_SIZE);
+                long good = 0;
+                while (in.hasRemaining()) {
+                    byte[] record;
+                    try {
+                        int length = in.readInt();
+                        int checksum = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_SIZE) {
+                            throw new IOException("Độ dài bản ghi không hợp lệ: " + length);
+                        }
+                        record = in.readBytes(length);
+                        CRC32C actual = new CRC32C();
+                        actual.update(record);
+                        if ((int) actual.getValue() != checksum) {
+                            throw new IOException("Sai checksum bản ghi");
+                        }
+                    } catch (IOException e) {
+                        if (!last) {
+                            throw new IOException("WAL bị hỏng tại " + file + " (byte " + good + "): "
+                                    + e.getMessage(), e);
+                        }
+                        if (!(e instanceof EOFException)) {
+                            System.err.println("Bỏ phần cuối WAL bị hỏng tại " + file + " (byte " + good + "): "
+                                    + e.getMessage());
+                        }
+                        channel.truncate(good);
+                        break;
+                    }
+                    apply(new BinaryReader(ByteBuffer.wrap(record)), handler);
+                    good = in.position();
+                    applied++;
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(BinaryReader in, Handler handler) throws IOException {
+        int type = in.readByte();
+        switch (type) {
+            case ADD_USER -> handler.addUser(new User(in.readVarInt(), in.readString(), in.readString(),
+                    in.readString(), in.readTimestamp()));
+            case ADD_POST -> handler.addPost(readPost(in));
+            case UPDATE_POST -> handler.updatePost(readPost(in));
+            case DELETE_POST -> handler.deletePost(in.readVarInt());
+            case ADD_COMMENT -> handler.addComment(new Comment(in.readVarInt(), in.readVarInt(), in.readString(),
+                    in.readString(), in.readTimestamp()));
+            case DELETE_COMMENT -> handler.deleteComment(in.readVarInt());
+            default -> throw new IOException("Loại bản ghi WAL không hợp lệ: " + type);
+        }
+    }
+
+    private static Post readPost(BinaryReader in) throws IOException {
+        return new Post(in.readVarInt(), in.readString(), in.readString(), in.readVarInt(),
+                in.readTimestamp(), in.readTimestamp());
+    }
+
+    // ========== FILE ĐOẠN ==========
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentFile(dataFile, number), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentFile(Path dataFile, long number) {
+        return dataFile.resolveSibling(String.format("%s.wal.%06d", dataFile.getFileName(), number));
+    }
+
+    // Số thứ tự các đoạn WAL đang có, tăng dần
+    static List<Long> listSegments(Path dataFile) throws IOException {
+        Path dir = dataFile.toAbsolutePath().getParent();
+        String prefix = dataFile.getFileName() + ".wal.";
+        List<Long> ketQua = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path file : stream) {
+                try {
+                    ketQua.add(Long.parseLong(file.getFileName().toString().substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // không phải đoạn WAL
+                }
+            }
+        }
+        ketQua.sort(null);
+        return ketQua;
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.service;
+
+import org.example.model.Comment;
+import org.example.model.Post;
+import org.example.model.User;
+import org.example.storage.SnapshotCodec;
+import org.example.storage.SnapshotData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Phần lưu trữ của BlogManager trên thư mục tạm (không đụng tới blog_data.dat)
+class BlogManagerStorageTest {
+    private static final String[] CONTENTS = {"Nội dung tiếng Việt có dấu", "", null, "x".repeat(100_000)};
+    private static final int WRITERS = 8;
+    private static final int SEED_POSTS = 20_000;
+    private static final int CHECKPOINTS = 10;
+
+    @TempDir
+    Path dir;
+
+    // ========== SNAPSHOT ==========
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        Path file = dir.resolve("snapshot.dat");
+        BlogManager app = seedSnapshot(file);
+
+        // Bước 1: đọc trực tiếp bằng SnapshotCodec
+        SnapshotData data = SnapshotCodec.read(file);
+        assertEquals(1, data.getUsers().size());
+        assertEquals("admin", data.getUsers().get(0).getUsername());
+        assertEquals(CONTENTS.length, data.getPosts().size());
+        for (Post post : data.getPosts()) {
+            assertEquals(CONTENTS[post.getId() - 1], post.getContent(), "nội dung bài " + post.getId());
+            assertEquals("Bài " + post.getId(), post.getTitle());
+        }
+        assertEquals(49, data.getComments().size());
+
+        // Bước 2: nạp lại bằng BlogManager
+        BlogManager reloaded = new BlogManager(file.toString());
+        assertTrue(reloaded.loadFromFile());
+        for (int postId = 1; postId <= CONTENTS.length; postId++) {
+            Post post = reloaded.getPostById(postId).orElseThrow();
+            assertEquals(CONTENTS[postId - 1], post.getContent(), "nội dung bài " + postId);
+            assertEquals(app.getCommentsByPostId(postId).size(), reloaded.getCommentsByPostId(postId).size());
+        }
+        assertEquals(app.getNextCommentId(), reloaded.getNextCommentId());
+    }
+
+    @Test
+    void corruptedPostContentIsDetectedOnRead() throws IOException {
+        Path file = dir.resolve("snapshot.dat");
+        seedSnapshot(file);
+
+        // Đổi một byte nội dung (ngay sau "BLOG" + version), đúng một bài phải báo lỗi checksum
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 5);
+            b.put(0, (byte) (b.get(0) ^ 0x5A)).rewind();
+            channel.write(b, 5);
+        }
+        int corrupt = 0;
+        for (Post post : SnapshotCodec.read(file).getPosts()) {
+            try {
+                post.getContent();
+            } catch (UncheckedIOException e) {
+                corrupt++;
+            }
+        }
+        assertEquals(1, corrupt);
+    }
+
+    private static BlogManager seedSnapshot(Path file) {
+        BlogManager app = new BlogManager(file.toString());
+        assertTrue(app.loadFromFile());
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        app.addUser(new User(app.getNextUserId(), "admin", "hash", "Quản trị", now));
+        for (String content : CONTENTS) {
+            int id = app.getNextPostId();
+            app.addPost(new Post(id, "Bài " + id, content, 1, now, null));
+        }
+        for (int i = 0; i < 50; i++) {
+            app.addComment(new Comment(app.getNextCommentId(), 1 + i % CONTENTS.length, "khách " + i,
+                    "bình luận " + i, now));
+        }
+        app.deleteComment(3);
+        app.saveToFile();
+        return app;
+    }
+
+    // ========== WAL ==========
+
+    @Test
+    void tornWalTailIsTruncatedOnStartup() throws IOException {
+        Path file = dir.resolve("wal.dat");
+        BlogManager app = new BlogManager(file.toString());
+        app.loadFromFile();
+        app.openWriteAheadLog(0, Long.MAX_VALUE, 0);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 20; i++) {
+            app.addPost(new Post(app.getNextPostId(), "Bài " + i, "Nội dung " + i, 1, now, null));
+        }
+        for (int i = 0; i < 200; i++) {
+            app.addComment(new Comment(app.getNextCommentId(), 1 + i % 20, "khách", "bình luận " + i, now));
+        }
+        app.updatePost(new Post(7, "Đã sửa", "Nội dung mới", 1, now, now));
+        app.deletePost(5);
+        app.close();
+
+        // Bước 1: giả lập sập giữa lúc ghi: đuôi đoạn WAL cuối là một bản ghi dở dang
+        Path segment = lastWalSegment(file);
+        long goodSize = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        BlogManager recovered = new BlogManager(file.toString());
+        assertTrue(recovered.loadFromFile());
+        assertEquals(goodSize, Files.size(segment));
+        assertEquals(19, recovered.getAllPosts().size());
+        assertEquals("Đã sửa", recovered.getPostById(7).map(Post::getTitle).orElse(""));
+        assertEquals(10, recovered.getCommentsByPostId(1).size());
+
+        // Bước 2: ghi tiếp sau khi khôi phục rồi khởi động lại lần nữa
+        recovered.openWriteAheadLog(0, Long.MAX_VALUE, 0);
+        recovered.addComment(new Comment(recovered.getNextCommentId(), 1, "khách", "sau khôi phục", now));
+        recovered.close();
+        BlogManager again = new BlogManager(file.toString());
+        assertTrue(again.loadFromFile());
+        assertEquals(11, again.getCommentsByPostId(1).size());
+    }
+
+    private static Path lastWalSegment(Path dataFile) throws IOException {
+        String prefix = dataFile.getFileName() + ".wal.";
+        try (Stream<Path> files = Files.list(dataFile.getParent())) {
+            return files.filter(p -> p.getFileName().toString().startsWith(prefix))
+                    .max(Comparator.comparing(Path::toString))
+                    .orElseThrow(() -> new IOException("Không tìm thấy đoạn WAL"));
+        }
+    }
+
+    // ========== CHECKPOINT ==========
+
+    // WRITERS luồng ghi liên tục trong lúc checkpoint (đổi tiêu đề bài i thành k, thêm bình luận nội dung k
+    // rồi xóa bình luận k - 1); snapshot phải là một thời điểm nhất quán: với mỗi bài, bình luận lớn nhất
+    // bằng tiêu đề hoặc tiêu đề - 1
+    @Test
+    void checkpointIsPointInTimeWhileWriting() throws Exception {
+        Path file = dir.resolve("checkpoint.dat");
+        BlogManager app = new BlogManager(file.toString());
+        app.loadFromFile();
+        // Nạp sẵn trước khi bật WAL cho nhanh; checkpoint vẫn ghi toàn bộ dữ liệu trong bộ nhớ
+        for (int i = 0; i < SEED_POSTS; i++) {
+            app.addPost(new Post(app.getNextPostId(), "0", "Nội dung " + i, 1, LocalDateTime.now(), null));
+        }
+        app.openWriteAheadLog(10, Long.MAX_VALUE, 0);
+
+        // WRITERS bài cuối (checkpoint duyệt tới chúng sau cùng nên các luồng ghi kịp sửa chúng trong lúc
+        // duyệt): mỗi luồng một bài, tiêu đề đổi trước rồi mới thêm bình luận cùng số.
+        // Bình luận cũ bị xóa ngay nên số bình luận không tăng mãi dù các luồng ghi không dừng
+        int firstWriterPost = SEED_POSTS - WRITERS + 1;
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread[] threads = new Thread[WRITERS];
+        for (int t = 0; t < WRITERS; t++) {
+            int postId = firstWriterPost + t;
+            threads[t] = Thread.ofPlatform().name("test-writer-" + postId).start(() -> {
+                int previous = 0;
+                for (int k = 1; !stop.get(); k++) {
+                    LocalDateTime now = LocalDateTime.now();
+                    app.updatePost(new Post(postId, String.valueOf(k), "Nội dung", 1, now, now));
+                    Comment comment = new Comment(app.getNextCommentId(), postId, "khách", String.valueOf(k), now);
+                    app.addComment(comment);
+                    if (previous != 0) {
+                        app.deleteComment(previous);
+                    }
+                    previous = comment.getId();
+                }
+            });
+        }
+        try {
+            for (int round = 0; round < CHECKPOINTS; round++) {
+                Thread.sleep(100);
+                app.checkpointAsync().join();
+                SnapshotData data = SnapshotCodec.read(file);
+                Map<Integer, Integer> titles = new HashMap<>();
+                Map<Integer, Integer> maxComment = new HashMap<>();
+                for (Post post : data.getPosts()) {
+                    if (post.getId() >= firstWriterPost) {
+                        titles.put(post.getId(), Integer.parseInt(post.getTitle()));
+                    }
+                }
+                for (Comment comment : data.getComments()) {
+                    if (comment.getPostId() >= firstWriterPost) {
+                        maxComment.merge(comment.getPostId(), Integer.parseInt(comment.getContent()), Math::max);
+                    }
+                }
+                for (int postId = firstWriterPost; postId <= SEED_POSTS; postId++) {
+                    int title = titles.getOrDefault(postId, -1);
+                    int comment = maxComment.getOrDefault(postId, 0);
+                    assertTrue(comment == title || comment == title - 1, "checkpoint " + round + ": bài " + postId
+                            + " có tiêu đề " + title + " nhưng bình luận lớn nhất " + comment);
+                }
+            }
+        } finally {
+            stop.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            app.close();
+        }
+    }
+}
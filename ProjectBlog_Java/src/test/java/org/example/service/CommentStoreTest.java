@@ -0,0 +1,128 @@
+package org.example.service;
+
+import org.example.model.Comment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommentStoreTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 30, 15);
+
+    @Test
+    void putThenGetRebuildsAllColumns() {
+        CommentStore store = new CommentStore();
+        store.put(new Comment(7, 3, "khách", "Bình luận có dấu", NOW));
+        store.put(new Comment(8, 3, null, null, null));
+
+        Comment comment = store.get(7);
+        assertEquals(7, comment.getId());
+        assertEquals(3, comment.getPostId());
+        assertEquals("khách", comment.getAuthorName());
+        assertEquals("Bình luận có dấu", comment.getContent());
+        assertEquals(NOW, comment.getCreatedAt());
+
+        Comment empty = store.get(8);
+        assertNull(empty.getAuthorName());
+        assertNull(empty.getContent());
+        assertNull(empty.getCreatedAt());
+        assertNull(store.get(9));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void getByPostReturnsCommentsInIdOrder() {
+        CommentStore store = new CommentStore();
+        for (int id : new int[]{5, 1, 9, 3}) {
+            store.put(new Comment(id, 42, "khách", "c" + id, NOW));
+        }
+        store.put(new Comment(2, 43, "khách", "bài khác", NOW));
+
+        assertEquals(List.of(1, 3, 5, 9), ids(store.getByPost(42)));
+        assertEquals(List.of(2), ids(store.getByPost(43)));
+        assertTrue(store.getByPost(44).isEmpty());
+    }
+
+    @Test
+    void overwriteMovesCommentToAnotherPost() {
+        CommentStore store = new CommentStore();
+        store.put(new Comment(1, 1, "khách", "cũ", NOW));
+        // Bài 2 nằm ở stripe khác bài 1
+        store.put(new Comment(1, 2, "khách", "mới", NOW));
+
+        assertTrue(store.getByPost(1).isEmpty());
+        assertEquals("mới", store.getByPost(2).get(0).getContent());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void removeAndRemoveByPost() {
+        CommentStore store = new CommentStore();
+        for (int id = 1; id <= 10; id++) {
+            store.put(new Comment(id, id % 2 == 0 ? 100 : 101, "khách", "c" + id, NOW));
+        }
+
+        assertEquals("c4", store.remove(4).getContent());
+        assertNull(store.remove(4));
+        assertNull(store.get(4));
+
+        List<Comment> removed = store.removeByPost(100);
+        assertEquals(List.of(2, 6, 8, 10), ids(removed));
+        assertTrue(store.getByPost(100).isEmpty());
+        assertEquals(List.of(1, 3, 5, 7, 9), ids(store.getByPost(101)));
+        assertEquals(5, store.size());
+
+        // Hàng đã xóa được dùng lại mà không làm hỏng bình luận còn lại
+        store.put(new Comment(11, 101, "người khác", "c11", NOW));
+        assertEquals(List.of(1, 3, 5, 7, 9, 11), ids(store.getByPost(101)));
+        assertEquals("người khác", store.get(11).getAuthorName());
+    }
+
+    @Test
+    void entriesStopAtMaxIdAndSkipDeleted() {
+        CommentStore store = new CommentStore();
+        // Vượt qua một trang chỉ mục (4096 id)
+        for (int id = 1; id <= 5000; id++) {
+            store.put(new Comment(id, id % 37, "khách", "c" + id, NOW));
+        }
+        store.remove(10);
+
+        List<Integer> seen = new ArrayList<>();
+        for (Map.Entry<Integer, Comment> entry : store.entries(4500)) {
+            assertEquals(entry.getKey(), entry.getValue().getId());
+            seen.add(entry.getKey());
+        }
+        assertEquals(4499, seen.size());
+        assertEquals(1, seen.get(0));
+        assertEquals(4500, seen.get(seen.size() - 1));
+        assertFalse(seen.contains(10));
+    }
+
+    @Test
+    void clearEmptiesTheStore() {
+        CommentStore store = new CommentStore();
+        store.put(new Comment(1, 1, "khách", "c1", NOW));
+        store.clear();
+
+        assertEquals(0, store.size());
+        assertNull(store.get(1));
+        assertTrue(store.getByPost(1).isEmpty());
+        store.put(new Comment(1, 1, "khách", "lại", NOW));
+        assertEquals("lại", store.get(1).getContent());
+    }
+
+    private static List<Integer> ids(List<Comment> comments) {
+        List<Integer> ketQua = new ArrayList<>();
+        for (Comment comment : comments) {
+            ketQua.add(comment.getId());
+        }
+        return ketQua;
+    }
+}
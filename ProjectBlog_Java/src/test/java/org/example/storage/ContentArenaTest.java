@@ -0,0 +1,107 @@
+package org.example.storage;
+
+import org.example.model.Post;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentArenaTest {
+    // 10 nội dung 100 byte mỗi chunk
+    private static final int CHUNK_SIZE = 1024;
+
+    @Test
+    void storedContentIsReadBackFromTheArena() {
+        ContentArena arena = new ContentArena(CHUNK_SIZE);
+        Post post = post(1, "Nội dung tiếng Việt có dấu");
+        ContentArena.Handle handle = arena.store(post);
+
+        assertSame(handle, post.getContentSource());
+        assertEquals("Nội dung tiếng Việt có dấu", post.getContent());
+        // Lưu lại bài đã ở trong arena thì dùng lại handle cũ
+        assertSame(handle, arena.store(post));
+        assertNull(arena.store(post(2, null)));
+        assertEquals(1, arena.getStats().getLiveEntries());
+    }
+
+    @Test
+    void contentLargerThanHalfAChunkGetsItsOwnChunk() {
+        ContentArena arena = new ContentArena(CHUNK_SIZE);
+        Post large = post(1, "x".repeat(10_000));
+        arena.store(large);
+        arena.store(post(2, "nhỏ"));
+
+        assertEquals(2, arena.getStats().getChunks());
+        assertEquals("x".repeat(10_000), large.getContent());
+    }
+
+    @Test
+    void sparseChunkIsCompactedAndSurvivorsStayReadable() {
+        ContentArena arena = new ContentArena(CHUNK_SIZE);
+        List<Post> posts = new ArrayList<>();
+        List<ContentArena.Handle> handles = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Post post = post(i, content(i));
+            posts.add(post);
+            handles.add(arena.store(post));
+        }
+        assertEquals(3, arena.getStats().getChunks());
+
+        // Chunk đầu còn 2/10 nội dung sống (< 1/4) thì bị dồn sang chunk đang ghi
+        for (int i = 0; i < 8; i++) {
+            arena.free(handles.get(i));
+        }
+        ArenaStats stats = arena.getStats();
+        assertTrue(stats.getCompactions() >= 1);
+        assertEquals(200, stats.getMovedBytes());
+        assertEquals(17, stats.getLiveEntries());
+        assertEquals(1700, stats.getLiveBytes());
+        for (int i = 8; i < 25; i++) {
+            assertEquals(content(i), posts.get(i).getContent());
+        }
+        // Handle đã giải phóng vẫn đọc được nội dung cũ (chunk bị bỏ không được dùng lại)
+        assertEquals(content(0), handles.get(0).get());
+    }
+
+    @Test
+    void chunkWithoutLiveContentIsDropped() {
+        ContentArena arena = new ContentArena(CHUNK_SIZE);
+        // Hai nội dung 400 byte mỗi chunk: xóa một cái chưa đủ thưa để dồn, xóa cả hai thì bỏ chunk
+        List<ContentArena.Handle> handles = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            handles.add(arena.store(post(i, content(i, 400))));
+        }
+        for (int i = 0; i < 2; i++) {
+            arena.free(handles.get(i));
+            // Giải phóng hai lần không trừ số liệu hai lần
+            arena.free(handles.get(i));
+        }
+
+        ArenaStats stats = arena.getStats();
+        assertEquals(1, stats.getChunks());
+        assertEquals(0, stats.getCompactions());
+        assertEquals(1, stats.getLiveEntries());
+        assertEquals(400, stats.getUsedBytes());
+        assertEquals(400, stats.getLiveBytes());
+    }
+
+    private static String content(int i) {
+        return content(i, 100);
+    }
+
+    // Nội dung ASCII đúng length byte
+    private static String content(int i, int length) {
+        String prefix = "bai-" + i + "-";
+        return prefix + "x".repeat(length - prefix.length());
+    }
+
+    private static Post post(int id, String content) {
+        return new Post(id, "Bài " + id, content, 1, LocalDateTime.now(), null);
+    }
+}